@@ -0,0 +1,16 @@
+package com.go4lunch;
+
+import androidx.multidex.MultiDexApplication;
+
+import com.go4lunch.di.DI;
+
+public class Go4LunchApplication extends MultiDexApplication {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        DI.init(this);
+    }
+
+
+}
@@ -1,12 +1,21 @@
 package com.go4lunch.di;
 
+import android.content.Context;
+
 import com.go4lunch.repositories.ChatRepository;
 import com.go4lunch.repositories.FirestoreRepository;
+import com.go4lunch.repositories.GooglePlaceHttpClient;
 import com.go4lunch.repositories.GooglePlaceRepository;
+import com.go4lunch.repositories.LocationRepository;
 
 public class DI {
 
-    private static final GooglePlaceRepository googlePlaceRepository = new GooglePlaceRepository();
+    private static GooglePlaceRepository googlePlaceRepository;
+
+    // Called once by Go4LunchApplication, before any screen, the HTTP cache of Google Place is in the cache directory of the app
+    public static void init(Context context) {
+        googlePlaceRepository = new GooglePlaceRepository(GooglePlaceHttpClient.create(context.getCacheDir()));
+    }
 
     public static GooglePlaceRepository getGooglePlaceRepository() {
         return googlePlaceRepository;
@@ -20,4 +29,8 @@ public class DI {
 
     public static ChatRepository getChatRepository() { return chatRepository; }
 
+    private static final LocationRepository locationRepository = new LocationRepository();
+
+    public static LocationRepository getLocationRepository() { return locationRepository; }
+
 }
@@ -0,0 +1,24 @@
+package com.go4lunch.model;
+
+import com.go4lunch.model.autocomplete.AutocompleteSearchTypeAdapter;
+import com.go4lunch.model.details.DetailSearchTypeAdapter;
+import com.go4lunch.model.nearbysearch.NearbySearchTypeAdapter;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Gson used to decode Google Place answers, with the streaming adapters of PlaceTypeAdapter instead of reflection.
+ * Writing still goes through reflection
+ */
+public class GooglePlaceGson {
+
+    public static Gson create() {
+        return new GsonBuilder()
+                .registerTypeAdapterFactory(new NearbySearchTypeAdapter().toFactory())
+                .registerTypeAdapterFactory(new DetailSearchTypeAdapter().toFactory())
+                .registerTypeAdapterFactory(new AutocompleteSearchTypeAdapter().toFactory())
+                .create();
+    }
+
+
+}
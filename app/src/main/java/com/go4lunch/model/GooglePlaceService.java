@@ -6,27 +6,37 @@ import com.go4lunch.model.details.DetailSearch;
 import com.go4lunch.model.nearbysearch.NearbySearch;
 
 import retrofit2.Call;
-import retrofit2.Retrofit;
-import retrofit2.converter.gson.GsonConverterFactory;
 import retrofit2.http.GET;
+import retrofit2.http.Headers;
 import retrofit2.http.Query;
 
 public interface GooglePlaceService {
 
-    Retrofit retrofit = new Retrofit.Builder()
-            .baseUrl("https://maps.googleapis.com/maps/api/place/")
-            .addConverterFactory(GsonConverterFactory.create())
-            .build();
+    String BASE_URL = "https://maps.googleapis.com/maps/api/place/";
+
+    // Read and removed by the network interceptor of GooglePlaceHttpClient, which makes the answer cacheable for that long
+    String CACHE_MAX_AGE_HEADER = "X-Cache-Max-Age";
+    int NEARBY_SEARCH_MAX_AGE_SECONDS = 15 * 60;
+    int DETAILS_MAX_AGE_SECONDS = 24 * 60 * 60;
+    int AUTOCOMPLETE_MAX_AGE_SECONDS = 60 * 60;
 
     // For Restaurants search
+    @Headers(CACHE_MAX_AGE_HEADER + ": " + NEARBY_SEARCH_MAX_AGE_SECONDS)
     @GET("nearbysearch/json?radius=1500&type=restaurant&key=" + BuildConfig.MAPS_API_KEY)
     Call<NearbySearch> getRestaurants(@Query("location") String position);
 
+    // For the next page of a Restaurants search, a page token can't be reused so the answer isn't cached
+    @GET("nearbysearch/json?key=" + BuildConfig.MAPS_API_KEY)
+    Call<NearbySearch> getRestaurantsNextPage(@Query("pagetoken") String pageToken);
+
     // For Restaurants details search
-    @GET("details/json?fields=formatted_phone_number,place_id,geometry,url,rating,website,photo,opening_hours,vicinity,name&key=" + BuildConfig.MAPS_API_KEY)
-    Call<DetailSearch> getRestaurantsDetails(@Query("place_id") String placeId);
+    @Headers(CACHE_MAX_AGE_HEADER + ": " + DETAILS_MAX_AGE_SECONDS)
+    // The fields come from a DetailProjection, the smaller the tier the lighter the answer
+    @GET("details/json?key=" + BuildConfig.MAPS_API_KEY)
+    Call<DetailSearch> getRestaurantsDetails(@Query("place_id") String placeId, @Query("fields") String fields);
 
     // For Autocomplete search
+    @Headers(CACHE_MAX_AGE_HEADER + ": " + AUTOCOMPLETE_MAX_AGE_SECONDS)
     @GET("autocomplete/json?types=establishment&radius=1500&language=fr&key=" + BuildConfig.MAPS_API_KEY)
     Call<AutocompleteSearch> getAutocompleteResult(@Query("location") String position, @Query("input") String input);
 
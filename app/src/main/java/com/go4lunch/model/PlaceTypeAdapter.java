@@ -0,0 +1,126 @@
+package com.go4lunch.model;
+
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base of the hand-written Gson adapters of the Places answers.
+ * They read the JSON as a stream without any reflection, and the fields the app never reads
+ * (html_attributions, plus_code, reference, scope...) are skipped instead of being built.
+ * Places answers are only written for logs or tests, so writing is left to the reflective adapter of Gson.
+ */
+public abstract class PlaceTypeAdapter<T> {
+
+    protected interface ValueReader<E> {
+        E read(JsonReader in) throws IOException;
+    }
+
+    private final Class<T> type;
+
+    protected PlaceTypeAdapter(Class<T> type) {
+        this.type = type;
+    }
+
+    @Nullable
+    public T read(JsonReader in) throws IOException {
+        return nextObject(in, this::readObject);
+    }
+
+    // Registered with GsonBuilder.registerTypeAdapterFactory, reads with this adapter and writes with the reflective one
+    public TypeAdapterFactory toFactory() {
+        return new TypeAdapterFactory() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <R> TypeAdapter<R> create(Gson gson, TypeToken<R> typeToken) {
+                if (typeToken.getRawType() != type) {
+                    return null;
+                }
+                TypeAdapter<T> reflectiveAdapter = gson.getDelegateAdapter(this, TypeToken.get(type));
+                return (TypeAdapter<R>) new TypeAdapter<T>() {
+                    @Override
+                    public void write(JsonWriter out, T value) throws IOException {
+                        reflectiveAdapter.write(out, value);
+                    }
+
+                    @Override
+                    public T read(JsonReader in) throws IOException {
+                        return PlaceTypeAdapter.this.read(in);
+                    }
+                };
+            }
+        };
+    }
+
+    // Called on a JSON object, never on null
+    protected abstract T readObject(JsonReader in) throws IOException;
+
+    @Nullable
+    protected static <E> E nextObject(JsonReader in, ValueReader<E> objectReader) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return objectReader.read(in);
+    }
+
+    @Nullable
+    protected static <E> List<E> nextList(JsonReader in, ValueReader<E> itemReader) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<E> list = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            list.add(nextObject(in, itemReader));
+        }
+        in.endArray();
+        return list;
+    }
+
+    @Nullable
+    protected static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    protected static double nextDouble(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        return in.nextDouble();
+    }
+
+    protected static int nextInt(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        return in.nextInt();
+    }
+
+    protected static boolean nextBoolean(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return false;
+        }
+        return in.nextBoolean();
+    }
+
+
+}
@@ -11,10 +11,18 @@ public class AutocompleteSearch {
 	@SerializedName("status")
 	private String status;
 
+	public void setPredictions(List<PredictionsResultItem> predictions){
+		this.predictions = predictions;
+	}
+
 	public List<PredictionsResultItem> getPredictions(){
 		return predictions;
 	}
 
+	public void setStatus(String status){
+		this.status = status;
+	}
+
 	public String getStatus(){
 		return status;
 	}
@@ -0,0 +1,83 @@
+package com.go4lunch.model.autocomplete;
+
+import com.go4lunch.model.PlaceTypeAdapter;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+
+/**
+ * Streaming decoder of the autocomplete answer.
+ * Skipped: reference, matched_substrings, terms and the main_text_matched_substrings of the structured formatting
+ */
+public class AutocompleteSearchTypeAdapter extends PlaceTypeAdapter<AutocompleteSearch> {
+
+    public AutocompleteSearchTypeAdapter() {
+        super(AutocompleteSearch.class);
+    }
+
+    @Override
+    protected AutocompleteSearch readObject(JsonReader in) throws IOException {
+        AutocompleteSearch autocompleteSearch = new AutocompleteSearch();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "predictions":
+                    autocompleteSearch.setPredictions(nextList(in, AutocompleteSearchTypeAdapter::readPrediction));
+                    break;
+                case "status":
+                    autocompleteSearch.setStatus(nextString(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return autocompleteSearch;
+    }
+
+    private static PredictionsResultItem readPrediction(JsonReader in) throws IOException {
+        PredictionsResultItem prediction = new PredictionsResultItem();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "types":
+                    prediction.setTypes(nextList(in, PlaceTypeAdapter::nextString));
+                    break;
+                case "structured_formatting":
+                    prediction.setStructuredFormatting(nextObject(in, AutocompleteSearchTypeAdapter::readStructuredFormatting));
+                    break;
+                case "description":
+                    prediction.setDescription(nextString(in));
+                    break;
+                case "place_id":
+                    prediction.setPlaceId(nextString(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return prediction;
+    }
+
+    private static StructuredFormatting readStructuredFormatting(JsonReader in) throws IOException {
+        StructuredFormatting structuredFormatting = new StructuredFormatting();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "main_text":
+                    structuredFormatting.setMainText(nextString(in));
+                    break;
+                case "secondary_text":
+                    structuredFormatting.setSecondaryText(nextString(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return structuredFormatting;
+    }
+
+
+}
@@ -30,6 +30,10 @@ public class PredictionsResultItem {
 		return reference;
 	}
 
+	public void setTypes(List<String> types){
+		this.types = types;
+	}
+
 	public List<String> getTypes(){
 		return types;
 	}
@@ -42,14 +46,26 @@ public class PredictionsResultItem {
 		return terms;
 	}
 
+	public void setStructuredFormatting(StructuredFormatting structuredFormatting){
+		this.structuredFormatting = structuredFormatting;
+	}
+
 	public StructuredFormatting getStructuredFormatting(){
 		return structuredFormatting;
 	}
 
+	public void setDescription(String description){
+		this.description = description;
+	}
+
 	public String getDescription(){
 		return description;
 	}
 
+	public void setPlaceId(String placeId){
+		this.placeId = placeId;
+	}
+
 	public String getPlaceId(){
 		return placeId;
 	}
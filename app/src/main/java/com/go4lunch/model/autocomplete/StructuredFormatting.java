@@ -18,10 +18,18 @@ public class StructuredFormatting{
 		return mainTextMatchedSubstrings;
 	}
 
+	public void setSecondaryText(String secondaryText){
+		this.secondaryText = secondaryText;
+	}
+
 	public String getSecondaryText(){
 		return secondaryText;
 	}
 
+	public void setMainText(String mainText){
+		this.mainText = mainText;
+	}
+
 	public String getMainText(){
 		return mainText;
 	}
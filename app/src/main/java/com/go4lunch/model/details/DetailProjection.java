@@ -0,0 +1,27 @@
+package com.go4lunch.model.details;
+
+/**
+ * Fields asked to the details endpoint, each tier contains the fields of the smaller ones.
+ * PIN is enough to put a marker on the map, ROW to fill a row of the list, FULL is for the restaurant detail screen
+ */
+public enum DetailProjection {
+
+    PIN("place_id,geometry,name"),
+    ROW("place_id,geometry,name,rating,photo,opening_hours,vicinity"),
+    FULL("place_id,geometry,name,rating,photo,opening_hours,vicinity,formatted_phone_number,url,website");
+
+    private final String fields;
+
+    DetailProjection(String fields) {
+        this.fields = fields;
+    }
+
+    public String getFields() {
+        return fields;
+    }
+
+    // True if a detail asked with this tier has every field of the other one
+    public boolean covers(DetailProjection other) {
+        return ordinal() >= other.ordinal();
+    }
+}
@@ -15,6 +15,13 @@ public class DetailSearch {
 	@SerializedName("status")
 	private String status;
 
+	// Fields asked for this answer, not part of the JSON
+	private transient DetailProjection projection;
+
+	public void setResult(RestaurantDetailResult result){
+		this.result = result;
+	}
+
 	public RestaurantDetailResult getResult(){
 		return result;
 	}
@@ -23,7 +30,20 @@ public class DetailSearch {
 		return htmlAttributions;
 	}
 
+	public void setStatus(String status){
+		this.status = status;
+	}
+
 	public String getStatus(){
 		return status;
 	}
+
+	public void setProjection(DetailProjection projection){
+		this.projection = projection;
+	}
+
+	// An answer without projection was asked with every field
+	public DetailProjection getProjection(){
+		return projection != null ? projection : DetailProjection.FULL;
+	}
 }
\ No newline at end of file
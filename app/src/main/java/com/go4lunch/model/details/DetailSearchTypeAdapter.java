@@ -0,0 +1,156 @@
+package com.go4lunch.model.details;
+
+import com.go4lunch.model.PlaceTypeAdapter;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+
+/**
+ * Streaming decoder of the details answer.
+ * Skipped: html_attributions, the periods of the opening hours and the html_attributions of the photos
+ */
+public class DetailSearchTypeAdapter extends PlaceTypeAdapter<DetailSearch> {
+
+    public DetailSearchTypeAdapter() {
+        super(DetailSearch.class);
+    }
+
+    @Override
+    protected DetailSearch readObject(JsonReader in) throws IOException {
+        DetailSearch detailSearch = new DetailSearch();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "result":
+                    detailSearch.setResult(nextObject(in, DetailSearchTypeAdapter::readResult));
+                    break;
+                case "status":
+                    detailSearch.setStatus(nextString(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return detailSearch;
+    }
+
+    private static RestaurantDetailResult readResult(JsonReader in) throws IOException {
+        RestaurantDetailResult result = new RestaurantDetailResult();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "website":
+                    result.setWebsite(nextString(in));
+                    break;
+                case "opening_hours":
+                    result.setOpeningHours(nextObject(in, DetailSearchTypeAdapter::readOpeningHours));
+                    break;
+                case "place_id":
+                    result.setPlaceId(nextString(in));
+                    break;
+                case "photos":
+                    result.setPhotos(nextList(in, DetailSearchTypeAdapter::readPhoto));
+                    break;
+                case "name":
+                    result.setName(nextString(in));
+                    break;
+                case "geometry":
+                    result.setGeometry(nextObject(in, DetailSearchTypeAdapter::readGeometry));
+                    break;
+                case "vicinity":
+                    result.setVicinity(nextString(in));
+                    break;
+                case "rating":
+                    result.setRating(nextDouble(in));
+                    break;
+                case "formatted_phone_number":
+                    result.setFormattedPhoneNumber(nextString(in));
+                    break;
+                case "url":
+                    result.setUrl(nextString(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return result;
+    }
+
+    private static OpeningHours readOpeningHours(JsonReader in) throws IOException {
+        OpeningHours openingHours = new OpeningHours();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "open_now":
+                    openingHours.setOpenNow(nextBoolean(in));
+                    break;
+                case "weekday_text":
+                    openingHours.setWeekdayText(nextList(in, PlaceTypeAdapter::nextString));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return openingHours;
+    }
+
+    private static PhotosItem readPhoto(JsonReader in) throws IOException {
+        PhotosItem photo = new PhotosItem();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "photo_reference":
+                    photo.setPhotoReference(nextString(in));
+                    break;
+                case "width":
+                    photo.setWidth(nextInt(in));
+                    break;
+                case "height":
+                    photo.setHeight(nextInt(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return photo;
+    }
+
+    private static Geometry readGeometry(JsonReader in) throws IOException {
+        Geometry geometry = new Geometry();
+        in.beginObject();
+        while (in.hasNext()) {
+            if ("location".equals(in.nextName())) {
+                geometry.setLocation(nextObject(in, DetailSearchTypeAdapter::readLocation));
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return geometry;
+    }
+
+    private static Location readLocation(JsonReader in) throws IOException {
+        Location location = new Location();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "lat":
+                    location.setLat(nextDouble(in));
+                    break;
+                case "lng":
+                    location.setLng(nextDouble(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return location;
+    }
+
+
+}
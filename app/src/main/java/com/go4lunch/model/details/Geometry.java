@@ -7,6 +7,10 @@ public class Geometry {
     @SerializedName("location")
     private Location location;
 
+    public void setLocation(Location location) {
+        this.location = location;
+    }
+
     public Location getLocation() {
         return location;
     }
@@ -10,10 +10,18 @@ public class Location{
 	@SerializedName("lat")
 	private double lat;
 
+	public void setLng(double lng){
+		this.lng = lng;
+	}
+
 	public double getLng(){
 		return lng;
 	}
 
+	public void setLat(double lat){
+		this.lat = lat;
+	}
+
 	public double getLat(){
 		return lat;
 	}
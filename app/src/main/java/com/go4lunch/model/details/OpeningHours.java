@@ -15,6 +15,10 @@ public class OpeningHours{
 	@SerializedName("weekday_text")
 	private List<String> weekdayText;
 
+	public void setOpenNow(boolean openNow){
+		this.openNow = openNow;
+	}
+
 	public boolean isOpenNow(){
 		return openNow;
 	}
@@ -23,6 +27,10 @@ public class OpeningHours{
 		return periods;
 	}
 
+	public void setWeekdayText(List<String> weekdayText){
+		this.weekdayText = weekdayText;
+	}
+
 	public List<String> getWeekdayText(){
 		return weekdayText;
 	}
@@ -17,10 +17,18 @@ public class PhotosItem{
 	@SerializedName("height")
 	private int height;
 
+	public void setPhotoReference(String photoReference){
+		this.photoReference = photoReference;
+	}
+
 	public String getPhotoReference(){
 		return photoReference;
 	}
 
+	public void setWidth(int width){
+		this.width = width;
+	}
+
 	public int getWidth(){
 		return width;
 	}
@@ -29,6 +37,10 @@ public class PhotosItem{
 		return htmlAttributions;
 	}
 
+	public void setHeight(int height){
+		this.height = height;
+	}
+
 	public int getHeight(){
 		return height;
 	}
@@ -36,42 +36,82 @@ public class RestaurantDetailResult {
 	@SerializedName("url")
 	private String url;
 
+	public void setWebsite(String website){
+		this.website = website;
+	}
+
 	public String getWebsite(){
 		return website;
 	}
 
+	public void setOpeningHours(OpeningHours openingHours){
+		this.openingHours = openingHours;
+	}
+
 	public OpeningHours getOpeningHours(){
 		return openingHours;
 	}
 
+	public void setPlaceId(String placeId){
+		this.placeId = placeId;
+	}
+
 	public String getPlaceId(){
 		return placeId;
 	}
 
+	public void setRating(double rating){
+		this.rating = rating;
+	}
+
 	public double getRating(){
 		return rating;
 	}
 
+	public void setPhotos(List<PhotosItem> photos){
+		this.photos = photos;
+	}
+
 	public List<PhotosItem> getPhotos(){
 		return photos;
 	}
 
+	public void setVicinity(String vicinity){
+		this.vicinity = vicinity;
+	}
+
 	public String getVicinity(){
 		return vicinity;
 	}
 
+	public void setName(String name){
+		this.name = name;
+	}
+
 	public String getName(){
 		return name;
 	}
 
+	public void setGeometry(Geometry geometry){
+		this.geometry = geometry;
+	}
+
 	public Geometry getGeometry(){
 		return geometry;
 	}
 
+	public void setFormattedPhoneNumber(String formattedPhoneNumber){
+		this.formattedPhoneNumber = formattedPhoneNumber;
+	}
+
 	public String getFormattedPhoneNumber(){
 		return formattedPhoneNumber;
 	}
 
+	public void setUrl(String url){
+		this.url = url;
+	}
+
 	public String getUrl(){
 		return url;
 	}
@@ -0,0 +1,93 @@
+package com.go4lunch.model.firestore;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Users who chose where to lunch, indexed by the place they chose.
+ * It's kept up to date with the document changes of the listener, so the number of diners of a restaurant
+ * is read without going through the whole list of users.
+ */
+public class DinersIndex {
+
+    private final Map<String, Set<String>> uidsByPlaceId = new HashMap<>();
+    private final Map<String, User> usersByUid = new HashMap<>();
+
+    // Add the user, or move him if he changed his eating place
+    public synchronized void put(@NonNull User user) {
+        remove(user.getUid());
+        if (!hasChosen(user)) {
+            return;
+        }
+        Set<String> uids = uidsByPlaceId.get(user.getEatingPlaceId());
+        if (uids == null) {
+            uids = new LinkedHashSet<>();
+            uidsByPlaceId.put(user.getEatingPlaceId(), uids);
+        }
+        uids.add(user.getUid());
+        usersByUid.put(user.getUid(), user);
+    }
+
+    public synchronized void remove(String uid) {
+        User previous = usersByUid.remove(uid);
+        if (previous == null) {
+            return;
+        }
+        Set<String> uids = uidsByPlaceId.get(previous.getEatingPlaceId());
+        if (uids != null) {
+            uids.remove(uid);
+            if (uids.isEmpty()) {
+                uidsByPlaceId.remove(previous.getEatingPlaceId());
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        uidsByPlaceId.clear();
+        usersByUid.clear();
+    }
+
+    public synchronized int getNumberOfDiners(String placeId) {
+        Set<String> uids = uidsByPlaceId.get(placeId);
+        return uids == null ? 0 : uids.size();
+    }
+
+    public synchronized boolean isBooked(String placeId) {
+        return uidsByPlaceId.containsKey(placeId);
+    }
+
+    public synchronized List<User> getDiners(String placeId) {
+        Set<String> uids = uidsByPlaceId.get(placeId);
+        if (uids == null) {
+            return Collections.emptyList();
+        }
+        List<User> diners = new ArrayList<>(uids.size());
+        for (String uid : uids) {
+            diners.add(usersByUid.get(uid));
+        }
+        return diners;
+    }
+
+    @Nullable
+    public synchronized User getUser(String uid) {
+        return usersByUid.get(uid);
+    }
+
+    public synchronized int size() {
+        return usersByUid.size();
+    }
+
+    private static boolean hasChosen(User user) {
+        return user.getUid() != null && user.getEatingPlaceId() != null && !user.getEatingPlaceId().trim().isEmpty();
+    }
+
+
+}
@@ -0,0 +1,86 @@
+package com.go4lunch.model.firestore;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Where a user eats on a given day, stored in the lunchChoices collection with the id date_uid.
+ * The name and the picture of the user are copied in it, so the diners of the day are read without reading the users.
+ */
+public class LunchChoice {
+
+    private String date;
+    private String uid;
+    private String username;
+    @Nullable
+    private String urlPicture;
+    private String eatingPlace;
+    private String eatingPlaceId;
+
+    public LunchChoice() {
+    }
+
+    public LunchChoice(String date, String uid, String username, @Nullable String urlPicture, String eatingPlace, String eatingPlaceId) {
+        this.date = date;
+        this.uid = uid;
+        this.username = username;
+        this.urlPicture = urlPicture;
+        this.eatingPlace = eatingPlace;
+        this.eatingPlaceId = eatingPlaceId;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public void setDate(String date) {
+        this.date = date;
+    }
+
+    public String getUid() {
+        return uid;
+    }
+
+    public void setUid(String uid) {
+        this.uid = uid;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    @Nullable
+    public String getUrlPicture() {
+        return urlPicture;
+    }
+
+    public void setUrlPicture(@Nullable String urlPicture) {
+        this.urlPicture = urlPicture;
+    }
+
+    public String getEatingPlace() {
+        return eatingPlace;
+    }
+
+    public void setEatingPlace(String eatingPlace) {
+        this.eatingPlace = eatingPlace;
+    }
+
+    public String getEatingPlaceId() {
+        return eatingPlaceId;
+    }
+
+    public void setEatingPlaceId(String eatingPlaceId) {
+        this.eatingPlaceId = eatingPlaceId;
+    }
+
+    // The user as displayed in the lists of diners
+    public User toDiner() {
+        return new User(uid, username, null, urlPicture, eatingPlace, eatingPlaceId, null);
+    }
+
+
+}
@@ -1,10 +1,16 @@
 package com.go4lunch.model.firestore;
 
+import com.google.firebase.firestore.DocumentId;
+
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
 
 public class Message {
 
+    // Id of the document, filled when read and never written
+    @DocumentId
+    private String id;
     private String from, to, message, urlPicFrom;
     private Date date;
     private List<String> between;
@@ -21,6 +27,14 @@ public class Message {
         this.between = between;
     }
 
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
     public String getFrom() {
         return from;
     }
@@ -69,5 +83,20 @@ public class Message {
         this.between = between;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Message that = (Message) o;
+        return Objects.equals(id, that.id) && Objects.equals(from, that.from) && Objects.equals(to, that.to)
+                && Objects.equals(message, that.message) && Objects.equals(urlPicFrom, that.urlPicFrom)
+                && Objects.equals(date, that.date) && Objects.equals(between, that.between);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, from, to, message, urlPicFrom, date, between);
+    }
+
 
 }
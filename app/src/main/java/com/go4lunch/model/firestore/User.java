@@ -13,19 +13,22 @@ public class User implements Comparable<User> {
     private String eatingPlace;
     private String eatingPlaceId;
     private String email;
+    private List<String> likedPlaceIds;
+    // Likes of the previous versions, by restaurant name, moved to likedPlaceIds when the restaurant is opened
+    @Nullable
     private List<String> listOfRestaurantsLiked;
 
     public User() {
     }
 
-    public User(String uid, String username, String email, @Nullable String urlPicture, String eatingPlace, String eatingPlaceId, List<String> listOfRestaurantsLiked) {
+    public User(String uid, String username, String email, @Nullable String urlPicture, String eatingPlace, String eatingPlaceId, List<String> likedPlaceIds) {
         this.uid = uid;
         this.username = username;
         this.email = email;
         this.urlPicture = urlPicture;
         this.eatingPlace = eatingPlace;
         this.eatingPlaceId = eatingPlaceId;
-        this.listOfRestaurantsLiked = listOfRestaurantsLiked;
+        this.likedPlaceIds = likedPlaceIds;
     }
 
 
@@ -85,11 +88,21 @@ public class User implements Comparable<User> {
         return user.getEatingPlace().compareTo(this.eatingPlace);
     }
 
+    // Place ids of the restaurants liked, updated one element at a time
+    public List<String> getLikedPlaceIds() {
+        return likedPlaceIds;
+    }
+
+    public void setLikedPlaceIds(List<String> likedPlaceIds) {
+        this.likedPlaceIds = likedPlaceIds;
+    }
+
+    @Nullable
     public List<String> getListOfRestaurantsLiked() {
         return listOfRestaurantsLiked;
     }
 
-    public void setListOfRestaurantsLiked(List<String> listOfRestaurantsLiked) {
+    public void setListOfRestaurantsLiked(@Nullable List<String> listOfRestaurantsLiked) {
         this.listOfRestaurantsLiked = listOfRestaurantsLiked;
     }
 
@@ -0,0 +1,75 @@
+package com.go4lunch.model.firestore;
+
+import androidx.annotation.Nullable;
+
+import java.util.Objects;
+
+/**
+ * What the lists of workmates display of a user, stored in the userSummaries collection with the uid as id.
+ * It's written with every change of the name or the picture of the user, so the lists don't read the whole users.
+ */
+public class UserSummary {
+
+    private String uid;
+    private String username;
+    @Nullable
+    private String urlPicture;
+
+    public UserSummary() {
+    }
+
+    public UserSummary(String uid, String username, @Nullable String urlPicture) {
+        this.uid = uid;
+        this.username = username;
+        this.urlPicture = urlPicture;
+    }
+
+    public static UserSummary from(User user) {
+        return new UserSummary(user.getUid(), user.getUsername(), user.getUrlPicture());
+    }
+
+    public String getUid() {
+        return uid;
+    }
+
+    public void setUid(String uid) {
+        this.uid = uid;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    @Nullable
+    public String getUrlPicture() {
+        return urlPicture;
+    }
+
+    public void setUrlPicture(@Nullable String urlPicture) {
+        this.urlPicture = urlPicture;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        UserSummary that = (UserSummary) o;
+        return Objects.equals(uid, that.uid) && Objects.equals(username, that.username) && Objects.equals(urlPicture, that.urlPicture);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(uid, username, urlPicture);
+    }
+
+    // The user as displayed in the lists, without his email nor his likes
+    public User toUser() {
+        return new User(uid, username, null, urlPicture, null, null, null);
+    }
+
+
+}
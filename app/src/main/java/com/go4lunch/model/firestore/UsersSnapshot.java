@@ -0,0 +1,120 @@
+package com.go4lunch.model.firestore;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable state of the users collection, with the changes that led to it from the previous snapshot.
+ * Changes follow Firestore DocumentChange indexes: they are applied one after the other, oldIndex is the position
+ * before the change and newIndex the position after it, so an adapter can replay them with positional notifies.
+ * The version grows by one at each snapshot, a consumer that missed one must reload the whole list.
+ */
+public class UsersSnapshot {
+
+    public enum ChangeType {
+        ADDED, MODIFIED, REMOVED
+    }
+
+    public static class UserChange {
+
+        private final ChangeType type;
+        private final User user;
+        private final int oldIndex;
+        private final int newIndex;
+
+        public UserChange(ChangeType type, User user, int oldIndex, int newIndex) {
+            this.type = type;
+            this.user = user;
+            this.oldIndex = oldIndex;
+            this.newIndex = newIndex;
+        }
+
+        public ChangeType getType() {
+            return type;
+        }
+
+        public User getUser() {
+            return user;
+        }
+
+        // -1 for ADDED
+        public int getOldIndex() {
+            return oldIndex;
+        }
+
+        // -1 for REMOVED
+        public int getNewIndex() {
+            return newIndex;
+        }
+    }
+
+    private final long version;
+    private final List<User> users;
+    private final Map<String, User> usersByUid;
+    private final List<UserChange> changes;
+
+    private UsersSnapshot(long version, List<User> users, Map<String, User> usersByUid, List<UserChange> changes) {
+        this.version = version;
+        this.users = Collections.unmodifiableList(users);
+        this.usersByUid = Collections.unmodifiableMap(usersByUid);
+        this.changes = Collections.unmodifiableList(changes);
+    }
+
+    public static UsersSnapshot empty() {
+        return new UsersSnapshot(0, new ArrayList<>(), new HashMap<>(), new ArrayList<>());
+    }
+
+    // Empty state for a listener that starts again, the version jumps so consumers reload the whole list
+    public UsersSnapshot restart() {
+        return new UsersSnapshot(version + 1, new ArrayList<>(), new HashMap<>(), new ArrayList<>());
+    }
+
+    // Only the changed users are new objects, the others are shared with the previous snapshot
+    public UsersSnapshot apply(@NonNull List<UserChange> changes) {
+        List<User> newUsers = new ArrayList<>(users);
+        Map<String, User> newUsersByUid = new HashMap<>(usersByUid);
+        for (UserChange change : changes) {
+            switch (change.getType()) {
+                case ADDED:
+                    newUsers.add(change.getNewIndex(), change.getUser());
+                    newUsersByUid.put(change.getUser().getUid(), change.getUser());
+                    break;
+                case MODIFIED:
+                    newUsers.remove(change.getOldIndex());
+                    newUsers.add(change.getNewIndex(), change.getUser());
+                    newUsersByUid.put(change.getUser().getUid(), change.getUser());
+                    break;
+                case REMOVED:
+                    newUsers.remove(change.getOldIndex());
+                    newUsersByUid.remove(change.getUser().getUid());
+                    break;
+            }
+        }
+        return new UsersSnapshot(version + 1, newUsers, newUsersByUid, new ArrayList<>(changes));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    @Nullable
+    public User getUser(String uid) {
+        return usersByUid.get(uid);
+    }
+
+    public List<UserChange> getChanges() {
+        return changes;
+    }
+
+
+}
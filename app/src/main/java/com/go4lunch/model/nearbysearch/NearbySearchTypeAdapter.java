@@ -0,0 +1,163 @@
+package com.go4lunch.model.nearbysearch;
+
+import com.go4lunch.model.PlaceTypeAdapter;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+
+/**
+ * Streaming decoder of the nearbysearch answer.
+ * Skipped: html_attributions, reference, scope, plus_code, geometry viewport and the html_attributions of the photos
+ */
+public class NearbySearchTypeAdapter extends PlaceTypeAdapter<NearbySearch> {
+
+    public NearbySearchTypeAdapter() {
+        super(NearbySearch.class);
+    }
+
+    @Override
+    protected NearbySearch readObject(JsonReader in) throws IOException {
+        NearbySearch nearbySearch = new NearbySearch();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "next_page_token":
+                    nearbySearch.setNextPageToken(nextString(in));
+                    break;
+                case "results":
+                    nearbySearch.setResults(nextList(in, NearbySearchTypeAdapter::readResult));
+                    break;
+                case "status":
+                    nearbySearch.setStatus(nextString(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return nearbySearch;
+    }
+
+    private static ResultsItem readResult(JsonReader in) throws IOException {
+        ResultsItem result = new ResultsItem();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "types":
+                    result.setTypes(nextList(in, PlaceTypeAdapter::nextString));
+                    break;
+                case "business_status":
+                    result.setBusinessStatus(nextString(in));
+                    break;
+                case "icon":
+                    result.setIcon(nextString(in));
+                    break;
+                case "rating":
+                    result.setRating(nextDouble(in));
+                    break;
+                case "photos":
+                    result.setPhotos(nextList(in, NearbySearchTypeAdapter::readPhoto));
+                    break;
+                case "user_ratings_total":
+                    result.setUserRatingsTotal(nextInt(in));
+                    break;
+                case "price_level":
+                    result.setPriceLevel(nextInt(in));
+                    break;
+                case "name":
+                    result.setName(nextString(in));
+                    break;
+                case "opening_hours":
+                    result.setOpeningHours(nextObject(in, NearbySearchTypeAdapter::readOpeningHours));
+                    break;
+                case "geometry":
+                    result.setGeometry(nextObject(in, NearbySearchTypeAdapter::readGeometry));
+                    break;
+                case "vicinity":
+                    result.setVicinity(nextString(in));
+                    break;
+                case "place_id":
+                    result.setPlaceId(nextString(in));
+                    break;
+                case "permanently_closed":
+                    result.setPermanentlyClosed(nextBoolean(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return result;
+    }
+
+    private static PhotosItem readPhoto(JsonReader in) throws IOException {
+        PhotosItem photo = new PhotosItem();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "photo_reference":
+                    photo.setPhotoReference(nextString(in));
+                    break;
+                case "width":
+                    photo.setWidth(nextInt(in));
+                    break;
+                case "height":
+                    photo.setHeight(nextInt(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return photo;
+    }
+
+    private static OpeningHours readOpeningHours(JsonReader in) throws IOException {
+        OpeningHours openingHours = new OpeningHours();
+        in.beginObject();
+        while (in.hasNext()) {
+            if ("open_now".equals(in.nextName())) {
+                openingHours.setOpenNow(nextBoolean(in));
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return openingHours;
+    }
+
+    private static Geometry readGeometry(JsonReader in) throws IOException {
+        Geometry geometry = new Geometry();
+        in.beginObject();
+        while (in.hasNext()) {
+            if ("location".equals(in.nextName())) {
+                geometry.setLocation(nextObject(in, NearbySearchTypeAdapter::readLocation));
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return geometry;
+    }
+
+    private static Location readLocation(JsonReader in) throws IOException {
+        Location location = new Location();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "lat":
+                    location.setLat(nextDouble(in));
+                    break;
+                case "lng":
+                    location.setLng(nextDouble(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return location;
+    }
+
+
+}
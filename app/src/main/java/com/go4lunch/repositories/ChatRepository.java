@@ -1,36 +1,65 @@
 package com.go4lunch.repositories;
 
-import com.firebase.ui.firestore.FirestoreRecyclerOptions;
 import com.go4lunch.model.firestore.Message;
+import com.go4lunch.repositories.firestore.PagedChatSource;
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class ChatRepository {
 
-    private static final String COLLECTION_NAME = "message";
+    // Messages written before the conversations, all in one collection
+    private static final String COLLECTION_NAME_LEGACY_MESSAGES = "message";
+    private static final String COLLECTION_NAME_CONVERSATIONS = "conversations";
+    private static final String COLLECTION_NAME_MESSAGES = "messages";
+    private static final String BETWEEN = "between";
+    // A copy and a delete per legacy message, under the limit of 500 writes of a batch
+    private static final int MAX_MIGRATED_MESSAGES_PER_BATCH = 250;
     private static final String COLLECTION_NAME_USERS = "users";
+    private static final int CHAT_PAGE_SIZE = 30;
+    // Messages kept in memory when the conversation is scrolled
+    private static final int CHAT_MAX_WINDOW_SIZE = 150;
     private static final FirebaseAuth firebaseAuth = FirebaseAuth.getInstance();
 
-    private static CollectionReference getMessageCollection() {
-        return FirebaseFirestore.getInstance().collection(COLLECTION_NAME);
+    private static CollectionReference getLegacyMessageCollection() {
+        return FirebaseFirestore.getInstance().collection(COLLECTION_NAME_LEGACY_MESSAGES);
+    }
+
+    private static DocumentReference getConversationDocument(String from, String to) {
+        return FirebaseFirestore.getInstance().collection(COLLECTION_NAME_CONVERSATIONS).document(getConversationKey(from, to));
+    }
+
+    // The messages of a conversation are in conversations/<key>/messages
+    private static CollectionReference getConversationMessageCollection(String from, String to) {
+        return getConversationDocument(from, to).collection(COLLECTION_NAME_MESSAGES);
+    }
+
+    // Same key whoever sends the message, uid1_uid2 with the uids sorted
+    public static String getConversationKey(String from, String to) {
+        return from.compareTo(to) <= 0 ? from + "_" + to : to + "_" + from;
     }
 
     public static CollectionReference getUsersCollection() {
         return FirebaseFirestore.getInstance().collection(COLLECTION_NAME_USERS);
     }
 
-    //Get message from FirestoreRecyclerOptions
-    public FirestoreRecyclerOptions<Message> getPrivateChatRoomMessage(String from, String to) {
-        Query query = getMessageCollection().whereIn("between", Arrays.asList(Arrays.asList(from, to), Arrays.asList(to, from))).orderBy("date", Query.Direction.ASCENDING);
-        return new FirestoreRecyclerOptions.Builder<Message>()
-                .setQuery(query, Message.class)
-                .build();
+    // Get the messages of a conversation by pages, only the newest page is listened
+    public PagedChatSource getPrivateChatRoomMessage(String from, String to, PagedChatSource.Listener listener) {
+        Query query = getConversationMessageCollection(from, to).orderBy("date", Query.Direction.ASCENDING);
+        return new PagedChatSource(query, CHAT_PAGE_SIZE, CHAT_MAX_WINDOW_SIZE, listener);
     }
 
     public String getCurrentUserId() {
@@ -44,8 +73,40 @@ public class ChatRepository {
 
     //Insert message in firestore
     public Task<Void> newMessage(Message newMessage) {
-        return getMessageCollection().document().set(newMessage);
+        return getConversationMessageCollection(newMessage.getFrom(), newMessage.getTo()).document().set(newMessage);
     }
 
+    /**
+     * Move the messages of the conversation still in the legacy collection into the conversation, with the same ids.
+     * A moved message is deleted from the legacy collection, so the legacy query of a migrated conversation is empty
+     * and only costs one read. It's asked each time the conversation is opened: the messages written later by an old
+     * version of the app are moved too, and a failed migration is done again at the next opening.
+     */
+    public Task<Void> migrateLegacyMessages(String from, String to) {
+        DocumentReference conversation = getConversationDocument(from, to);
+        return getLegacyMessageCollection()
+                .whereIn(BETWEEN, Arrays.asList(Arrays.asList(from, to), Arrays.asList(to, from)))
+                .get()
+                .onSuccessTask(legacyMessages -> {
+                    List<DocumentSnapshot> documents = legacyMessages.getDocuments();
+                    if (documents.isEmpty()) {
+                        return Tasks.forResult(null);
+                    }
+                    CollectionReference messages = conversation.collection(COLLECTION_NAME_MESSAGES);
+                    List<Task<Void>> commits = new ArrayList<>();
+                    for (int i = 0; i < documents.size(); i += MAX_MIGRATED_MESSAGES_PER_BATCH) {
+                        WriteBatch batch = FirebaseFirestore.getInstance().batch();
+                        for (DocumentSnapshot document : documents.subList(i, Math.min(i + MAX_MIGRATED_MESSAGES_PER_BATCH, documents.size()))) {
+                            batch.set(messages.document(document.getId()), document.getData());
+                            batch.delete(document.getReference());
+                        }
+                        commits.add(batch.commit());
+                    }
+                    Map<String, Object> fields = new HashMap<>();
+                    fields.put(BETWEEN, Arrays.asList(from, to));
+                    commits.add(conversation.set(fields, SetOptions.merge()));
+                    return Tasks.whenAll(commits);
+                });
+    }
 
 }
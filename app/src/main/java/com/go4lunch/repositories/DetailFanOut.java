@@ -0,0 +1,206 @@
+package com.go4lunch.repositories;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.go4lunch.model.details.DetailProjection;
+import com.go4lunch.model.details.DetailSearch;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Fetch the details of a ranked list of places with at most maxConcurrentCalls calls at the same time.
+ * Details are only fetched when requested (a row bound on screen, a pin on the map) with the DetailProjection the caller needs,
+ * a detail known with a smaller tier is asked again with the bigger one. Cached ones are known from the start.
+ * Each time a detail arrives, the details already known are emitted in the order of the ranking, not in the order of arrival.
+ * Requested details have a deadline after which the missing ones are given up (a new request retries them), and starting
+ * a new batch makes every late answer of the previous one ignored.
+ * Must be used from the main thread, like Retrofit callbacks.
+ */
+public class DetailFanOut {
+
+    public interface Fetcher {
+        @Nullable
+        DetailSearch getCached(String placeId, DetailProjection projection);
+
+        void fetch(String placeId, DetailProjection projection, Callback<DetailSearch> callback);
+    }
+
+    public interface Listener {
+        void onResults(List<DetailSearch> orderedResults);
+    }
+
+    // Runs the deadline, on the main thread by default
+    public interface Scheduler {
+        void postDelayed(Runnable runnable, long delayMs);
+
+        void removeCallbacks(Runnable runnable);
+    }
+
+    private final int maxConcurrentCalls;
+    private final long deadlineMs;
+    private final Fetcher fetcher;
+    private final Scheduler scheduler;
+    private final Runnable deadlineRunnable = this::giveUpMissingDetails;
+    private final ArrayDeque<Integer> pendingIndexes = new ArrayDeque<>();
+    private List<String> placeIds = new ArrayList<>();
+    private DetailSearch[] results = new DetailSearch[0];
+    // Biggest tier asked for each place, null if not asked
+    private DetailProjection[] requested = new DetailProjection[0];
+    private Listener listener;
+    private int generation;
+    private int runningCalls;
+
+    public DetailFanOut(int maxConcurrentCalls, long deadlineMs, @NonNull Fetcher fetcher) {
+        this(maxConcurrentCalls, deadlineMs, fetcher, new Scheduler() {
+            private final Handler handler = new Handler(Looper.getMainLooper());
+
+            @Override
+            public void postDelayed(Runnable runnable, long delayMs) {
+                handler.postDelayed(runnable, delayMs);
+            }
+
+            @Override
+            public void removeCallbacks(Runnable runnable) {
+                handler.removeCallbacks(runnable);
+            }
+        });
+    }
+
+    public DetailFanOut(int maxConcurrentCalls, long deadlineMs, @NonNull Fetcher fetcher, @NonNull Scheduler scheduler) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.deadlineMs = deadlineMs;
+        this.fetcher = fetcher;
+        this.scheduler = scheduler;
+    }
+
+    // Start a new batch with the details already in the cache, whatever their tier, the previous batch is canceled
+    public void start(@NonNull List<String> orderedPlaceIds, @NonNull Listener listener) {
+        cancel();
+        this.listener = listener;
+        placeIds = new ArrayList<>(orderedPlaceIds);
+        results = new DetailSearch[placeIds.size()];
+        requested = new DetailProjection[placeIds.size()];
+        for (int i = 0; i < placeIds.size(); i++) {
+            results[i] = fetcher.getCached(placeIds.get(i), DetailProjection.PIN);
+            requested[i] = getKnownProjection(i);
+        }
+        emit();
+    }
+
+    // Ask for the detail of a place of the current batch, nothing happens if it's already known or on its way with this tier
+    public void request(String placeId, DetailProjection projection) {
+        int index = placeIds.indexOf(placeId);
+        if (index == -1 || (requested[index] != null && requested[index].covers(projection))) {
+            return;
+        }
+        requested[index] = projection;
+        // A detail given up before may have reached the cache since
+        DetailSearch cachedDetail = fetcher.getCached(placeId, projection);
+        if (cachedDetail != null) {
+            results[index] = cachedDetail;
+            emit();
+            return;
+        }
+        if (pendingIndexes.isEmpty() && runningCalls == 0) {
+            scheduler.postDelayed(deadlineRunnable, deadlineMs);
+        }
+        if (!pendingIndexes.contains(index)) {
+            pendingIndexes.add(index);
+        }
+        fetchPending();
+    }
+
+    // Give up the current batch, the answers still to come are ignored
+    public void cancel() {
+        generation++;
+        pendingIndexes.clear();
+        runningCalls = 0;
+        scheduler.removeCallbacks(deadlineRunnable);
+    }
+
+    // The details still missing at the deadline can be requested again
+    private void giveUpMissingDetails() {
+        for (int i = 0; i < requested.length; i++) {
+            requested[i] = getKnownProjection(i);
+        }
+        cancel();
+    }
+
+    private void fetchPending() {
+        while (runningCalls < maxConcurrentCalls && !pendingIndexes.isEmpty()) {
+            int index = pendingIndexes.poll();
+            DetailProjection projection = requested[index];
+            if (projection == null || (results[index] != null && results[index].getProjection().covers(projection))) {
+                continue;
+            }
+            int batchGeneration = generation;
+            runningCalls++;
+            fetcher.fetch(placeIds.get(index), projection, new Callback<DetailSearch>() {
+                @Override
+                public void onResponse(@NonNull Call<DetailSearch> call, @NonNull Response<DetailSearch> response) {
+                    if (batchGeneration != generation) {
+                        return;
+                    }
+                    DetailSearch detailSearch = response.body();
+                    if (response.isSuccessful() && detailSearch != null && detailSearch.getResult() != null) {
+                        // A smaller tier arriving late doesn't replace a bigger one
+                        if (results[index] == null || detailSearch.getProjection().covers(results[index].getProjection())) {
+                            results[index] = detailSearch;
+                            emit();
+                        }
+                    } else if (requested[index] == projection) {
+                        // A detail that failed stays requestable, the next bind of its row asks for it again
+                        requested[index] = getKnownProjection(index);
+                    }
+                    onCallDone();
+                }
+
+                @Override
+                public void onFailure(@NonNull Call<DetailSearch> call, @NonNull Throwable t) {
+                    if (batchGeneration == generation) {
+                        if (requested[index] == projection) {
+                            requested[index] = getKnownProjection(index);
+                        }
+                        onCallDone();
+                    }
+                }
+            });
+        }
+    }
+
+    private void onCallDone() {
+        runningCalls--;
+        if (runningCalls == 0 && pendingIndexes.isEmpty()) {
+            scheduler.removeCallbacks(deadlineRunnable);
+        } else {
+            fetchPending();
+        }
+    }
+
+    @Nullable
+    private DetailProjection getKnownProjection(int index) {
+        return results[index] != null ? results[index].getProjection() : null;
+    }
+
+    private void emit() {
+        List<DetailSearch> orderedResults = new ArrayList<>();
+        for (DetailSearch result : results) {
+            if (result != null) {
+                orderedResults.add(result);
+            }
+        }
+        listener.onResults(orderedResults);
+    }
+
+
+}
@@ -5,61 +5,116 @@ import android.net.Uri;
 
 import androidx.annotation.Nullable;
 import androidx.lifecycle.LiveData;
-import androidx.lifecycle.MutableLiveData;
 
 import com.firebase.ui.auth.AuthUI;
+import com.go4lunch.model.firestore.DinersIndex;
+import com.go4lunch.model.firestore.LunchChoice;
 import com.go4lunch.model.firestore.User;
+import com.go4lunch.model.firestore.UserSummary;
+import com.go4lunch.model.firestore.UsersSnapshot;
+import com.go4lunch.repositories.firestore.CurrentUserCache;
+import com.go4lunch.repositories.firestore.DailyLiveData;
+import com.go4lunch.repositories.firestore.DocumentWriteCoalescer;
+import com.go4lunch.repositories.firestore.SnapshotListenerRegistry;
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentChange;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
 import com.google.firebase.storage.UploadTask;
 
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.UUID;
 
 public class FirestoreRepository {
 
     private static final String COLLECTION_NAME = "users";
+    private static final String LUNCH_CHOICES_COLLECTION_NAME = "lunchChoices";
+    private static final String USER_SUMMARIES_COLLECTION_NAME = "userSummaries";
     private static final String USERNAME_FIELD = "username";
     private static final String EATING_PLACE_ID = "eatingPlaceId";
-    private static final String EATING_PLACE = "eatingPlace";
-    private static final String LIST_OF_RESTAURANTS_LIKED = "listOfRestaurantsLiked";
+    private static final String DATE_FIELD = "date";
+    private static final String LIKED_PLACE_IDS = "likedPlaceIds";
+    private static final String LEGACY_LIKED_RESTAURANTS = "listOfRestaurantsLiked";
     private static final String URL_PICTURE = "urlPicture";
-    private final MutableLiveData<List<User>> listOfUsers = new MutableLiveData<>();
-    private final MutableLiveData<List<User>> listOfUsersWhoChoseRestaurant = new MutableLiveData<>();
+    private static final String ALL_USERS_QUERY = "allUsers";
+    private static final String USERS_WHO_CHOSE_RESTAURANT_QUERY = "usersWhoChoseRestaurant";
 
-    public FirestoreRepository() {
-        getAllUsers();
+    // Listeners shared by all the screens and removed when no screen observes them any more
+    private final SnapshotListenerRegistry listenerRegistry = new SnapshotListenerRegistry();
+
+    public SnapshotListenerRegistry getListenerRegistry() {
+        return listenerRegistry;
     }
 
+    // Updates of the fields of a user asked together are sent in one write
+    private final DocumentWriteCoalescer writeCoalescer = new DocumentWriteCoalescer();
+
+    public DocumentWriteCoalescer getWriteCoalescer() {
+        return writeCoalescer;
+    }
+
+    // Lunch choices of the current day, created when first asked
+    private DailyLiveData<DinersIndex> dinersIndex;
+
+    // The current user, read once then kept up to date by a listener
+    private final CurrentUserCache currentUserCache = new CurrentUserCache();
+
     // Get the Collection Reference
     public CollectionReference getUsersCollection() {
         return FirebaseFirestore.getInstance().collection(COLLECTION_NAME);
     }
 
+    public CollectionReference getUserSummariesCollection() {
+        return FirebaseFirestore.getInstance().collection(USER_SUMMARIES_COLLECTION_NAME);
+    }
+
+    public CollectionReference getLunchChoicesCollection() {
+        return FirebaseFirestore.getInstance().collection(LUNCH_CHOICES_COLLECTION_NAME);
+    }
+
+    // Lunch choices are kept per day, the choices of the previous days are not read any more
+    public static String getToday() {
+        return new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date());
+    }
+
+    public static String getLunchChoiceId(String date, String uid) {
+        return date + "_" + uid;
+    }
+
     @Nullable
     public FirebaseUser getCurrentUser() {
         return FirebaseAuth.getInstance().getCurrentUser();
     }
 
+    // Null when nobody is signed in
+    @Nullable
     public String getCurrentUserId() {
-        return getCurrentUser().getUid();
+        FirebaseUser user = getCurrentUser();
+        return user != null ? user.getUid() : null;
     }
 
     public Task<Void> logout(Context context) {
+        currentUserCache.stop();
         return AuthUI.getInstance().signOut(context);
     }
 
     public Task<Void> deleteUser(Context context) {
+        currentUserCache.stop();
         return AuthUI.getInstance().delete(context);
     }
 
@@ -71,7 +126,8 @@ public class FirestoreRepository {
        If user is authenticated, we try to get his data from Firestore with getUserData
        If getUserData fail, we create the user on Firebase
        If getUserData success but the user == null (doesn't exist in Firestore) we create it in Firebase
-       And if the user of getUserData != null, so he already exist and we do nothing
+       And if the user of getUserData != null, so he already exist and only his summary is written again if it's missing
+       or differs from the user, which also creates the summaries of the users created before them
     */
     public void createUser() {
         FirebaseUser user = getCurrentUser();
@@ -83,64 +139,131 @@ public class FirestoreRepository {
             String urlPicture = (user.getPhotoUrl() != null) ? user.getPhotoUrl().toString() : urlDefaultPicture;
             String eatingPlace = " ";
             String eatingPlaceId = " ";
-            List<String> listOfRestaurantsLiked = new ArrayList<>();
+            List<String> likedPlaceIds = new ArrayList<>();
 
-            User userToCreate = new User(uid, username, email, urlPicture, eatingPlace, eatingPlaceId, listOfRestaurantsLiked);
+            User userToCreate = new User(uid, username, email, urlPicture, eatingPlace, eatingPlaceId, likedPlaceIds);
 
             Task<DocumentSnapshot> userData = getUserData();
 
-            userData.addOnFailureListener(documentSnapshot -> this.getUsersCollection().document(uid).set(userToCreate)).addOnSuccessListener(documentSnapshot -> {
+            userData.addOnFailureListener(documentSnapshot -> setUserAndSummary(userToCreate)).addOnSuccessListener(documentSnapshot -> {
                 User user1 = documentSnapshot.toObject(User.class);
                 if (user1 == null) {
-                    getUsersCollection().document(uid).set(userToCreate);
+                    setUserAndSummary(userToCreate);
+                } else {
+                    writeSummaryIfStale(user1);
                 }
             });
         }
     }
 
-    // Get All Users
-    public void getAllUsers() {
-        getUsersCollection()
-                .orderBy("eatingPlace", Query.Direction.DESCENDING)
-                .addSnapshotListener((value, error) -> {
-                    List<User> allWorkMates = new ArrayList<>();
-                    if (value != null) {
-                        for (DocumentSnapshot document : value.getDocuments()) {
+    // A summary up to date isn't written again, so a login doesn't send a snapshot to every workmates list
+    private void writeSummaryIfStale(User user) {
+        UserSummary userSummary = UserSummary.from(user);
+        DocumentReference summaryDocument = getUserSummariesCollection().document(user.getUid());
+        summaryDocument.get().addOnSuccessListener(documentSnapshot -> {
+            if (!userSummary.equals(documentSnapshot.toObject(UserSummary.class))) {
+                summaryDocument.set(userSummary);
+            }
+        });
+    }
+
+    private void setUserAndSummary(User user) {
+        WriteBatch batch = FirebaseFirestore.getInstance().batch();
+        batch.set(getUsersCollection().document(user.getUid()), user);
+        batch.set(getUserSummariesCollection().document(user.getUid()), UserSummary.from(user));
+        batch.commit();
+    }
 
-                            User myUser = document.toObject(User.class);
+    /**
+     * Get All Users
+     * The summaries of the users are listened instead of the users, the users in the snapshot only have their uid, name and picture.
+     * Only the documents that changed since the last snapshot are deserialized, the changes are applied to the previous
+     * UsersSnapshot and published with it so the adapters can update only the rows that changed
+     */
+    public LiveData<UsersSnapshot> getUsersSnapshot() {
+        return listenerRegistry.get(ALL_USERS_QUERY, getUserSummariesCollection().orderBy(USERNAME_FIELD), this::applyUsersChanges);
+    }
 
-                            allWorkMates.add(myUser);
-                        }
-                    }
-                    listOfUsers.setValue(allWorkMates);
-                });
+    private UsersSnapshot applyUsersChanges(@Nullable UsersSnapshot previous, QuerySnapshot value, boolean firstSinceAttach) {
+        UsersSnapshot base = previous == null ? UsersSnapshot.empty() : firstSinceAttach ? previous.restart() : previous;
+        List<UsersSnapshot.UserChange> changes = new ArrayList<>();
+        for (DocumentChange documentChange : value.getDocumentChanges()) {
+            User user = null;
+            if (documentChange.getType() == DocumentChange.Type.REMOVED) {
+                user = base.getUser(documentChange.getDocument().getId());
+            }
+            if (user == null) {
+                user = documentChange.getDocument().toObject(UserSummary.class).toUser();
+            }
+            changes.add(new UsersSnapshot.UserChange(UsersSnapshot.ChangeType.valueOf(documentChange.getType().name()),
+                    user, documentChange.getOldIndex(), documentChange.getNewIndex()));
+        }
+        return base.apply(changes);
     }
 
-    public LiveData<List<User>> getListOfUsers() {
-        return listOfUsers;
+    /**
+     * Get Users who chose an eatingPlace today, indexed by the place they chose
+     * Only the lunch choices of the day are listened, the key of the listener changes with the date and the day is
+     * checked again when a screen observes it and at midnight, the listener of the previous day is then released.
+     * The same index is updated with the document changes of each snapshot
+     */
+    public LiveData<DinersIndex> getDinersIndex() {
+        if (dinersIndex == null) {
+            dinersIndex = new DailyLiveData<>(new DailyLiveData.DaySource<DinersIndex>() {
+                @Override
+                public String getToday() {
+                    return FirestoreRepository.getToday();
+                }
+
+                @Override
+                public LiveData<DinersIndex> get(String day) {
+                    return listenerRegistry.get(getDinersIndexKey(day), getLunchChoicesCollection().whereEqualTo(DATE_FIELD, day), FirestoreRepository.this::applyDinersChanges);
+                }
+
+                @Override
+                public void release(String day) {
+                    listenerRegistry.release(getDinersIndexKey(day));
+                }
+            });
+        }
+        return dinersIndex;
     }
 
-    // Get Users who chose an eatingPlace
-    public void getUsersWhoChoseRestaurant() {
-        getUsersCollection()
-                .whereNotEqualTo("eatingPlace", " ")
-                .addSnapshotListener((value, error) -> {
-                    List<User> allWorkMatesWhoChoseRestaurant = new ArrayList<>();
-                    if (value != null) {
-                        for (DocumentSnapshot documentSnapshot : value.getDocuments()) {
+    private static String getDinersIndexKey(String day) {
+        return USERS_WHO_CHOSE_RESTAURANT_QUERY + "/" + day;
+    }
 
-                            User myUser = documentSnapshot.toObject(User.class);
+    private DinersIndex applyDinersChanges(@Nullable DinersIndex previous, QuerySnapshot value, boolean firstSinceAttach) {
+        DinersIndex dinersIndex = previous == null ? new DinersIndex() : previous;
+        if (firstSinceAttach) {
+            dinersIndex.clear();
+        }
+        for (DocumentChange documentChange : value.getDocumentChanges()) {
+            LunchChoice lunchChoice = documentChange.getDocument().toObject(LunchChoice.class);
+            if (documentChange.getType() == DocumentChange.Type.REMOVED) {
+                dinersIndex.remove(lunchChoice.getUid());
+            } else {
+                dinersIndex.put(lunchChoice.toDiner());
+            }
+        }
+        return dinersIndex;
+    }
 
-                            allWorkMatesWhoChoseRestaurant.add(myUser);
-                        }
-                    }
-                    listOfUsersWhoChoseRestaurant.setValue(allWorkMatesWhoChoseRestaurant);
-                });
+    // Get the lunch choice of the current user for today, null if he didn't choose
+    public Task<LunchChoice> getTodayLunchChoice() {
+        String uid = this.getCurrentUserId();
+        if (uid != null) {
+            return getLunchChoicesCollection().document(getLunchChoiceId(getToday(), uid)).get()
+                    .continueWith(task -> task.getResult().toObject(LunchChoice.class));
+        } else {
+            return Tasks.forException(new IllegalStateException("No user signed in"));
+        }
     }
 
-    public LiveData<List<User>> getListOfUsersWhoChoseRestaurant() {
-        getUsersWhoChoseRestaurant();
-        return listOfUsersWhoChoseRestaurant;
+    // Get the lunch choices of today for a restaurant
+    public Task<List<LunchChoice>> getTodayLunchChoices(String eatingPlaceId) {
+        return getLunchChoicesCollection().whereEqualTo(DATE_FIELD, getToday()).whereEqualTo(EATING_PLACE_ID, eatingPlaceId).get()
+                .continueWith(task -> task.getResult().toObjects(LunchChoice.class));
     }
 
     // Get User Data from Firestore
@@ -153,25 +276,56 @@ public class FirestoreRepository {
         }
     }
 
+    // Null when nobody is signed in
+    @Nullable
     public DocumentReference getUserDataForUpdate() {
-        return getUsersCollection().document(getCurrentUserId());
+        String uid = this.getCurrentUserId();
+        if (uid != null) {
+            return getUsersCollection().document(uid);
+        } else {
+            return null;
+        }
+    }
+
+    // Get the current User, at once when he's already cached
+    public Task<User> getCurrentUserData() {
+        DocumentReference userDocument = getUserDataForUpdate();
+        if (userDocument != null) {
+            return currentUserCache.getUser(userDocument);
+        } else {
+            return Tasks.forException(new IllegalStateException("No user signed in"));
+        }
+    }
+
+    // Stays empty when nobody is signed in
+    public LiveData<User> getCurrentUserLiveData() {
+        DocumentReference userDocument = getUserDataForUpdate();
+        if (userDocument != null) {
+            currentUserCache.start(userDocument);
+        }
+        return currentUserCache.getCurrentUser();
     }
 
     // Update Username
     public Task<Void> updateUsername(String username) {
         String uid = this.getCurrentUserId();
         if (uid != null) {
-            return this.getUsersCollection().document(uid).update(USERNAME_FIELD, username);
+            return updateUserAndSummary(uid, USERNAME_FIELD, username);
         } else {
             return null;
         }
     }
 
+    // The fields of the summary are written in the user and merged in his summary by the same batch
+    private Task<Void> updateUserAndSummary(String uid, String field, String value) {
+        return writeCoalescer.update(this.getUsersCollection().document(uid), this.getUserSummariesCollection().document(uid), field, value);
+    }
+
     // Update UrlPicture
     public Task<Void> updateUrlPicture(String urlPicture) {
         String uid = this.getCurrentUserId();
         if (uid != null) {
-            return this.getUsersCollection().document(uid).update(URL_PICTURE, urlPicture);
+            return updateUserAndSummary(uid, URL_PICTURE, urlPicture);
         } else {
             return null;
         }
@@ -195,59 +349,73 @@ public class FirestoreRepository {
         });
     }
 
-    // Update EatingPlaceId
-    public Task<Void> updateEatingPlaceId(String eatingPlaceId) {
-        String uid = this.getCurrentUserId();
-        if (uid != null) {
-            return this.getUsersCollection().document(uid).update(EATING_PLACE_ID, eatingPlaceId);
-        } else {
-            return null;
-        }
+    // Choose where the current user eats today, a new choice replaces the previous one of the day
+    public Task<Void> chooseEatingPlace(User user, String eatingPlaceId, String eatingPlace) {
+        String today = getToday();
+        LunchChoice lunchChoice = new LunchChoice(today, user.getUid(), user.getUsername(), user.getUrlPicture(), eatingPlace, eatingPlaceId);
+        return getLunchChoicesCollection().document(getLunchChoiceId(today, user.getUid())).set(lunchChoice);
     }
 
-    // Update EatingPlace
-    public Task<Void> updateEatingPlace(String eatingPlace) {
+    // Cancel the choice of the current user for today
+    public Task<Void> cancelEatingPlace() {
         String uid = this.getCurrentUserId();
         if (uid != null) {
-            return this.getUsersCollection().document(uid).update(EATING_PLACE, eatingPlace);
+            return getLunchChoicesCollection().document(getLunchChoiceId(getToday(), uid)).delete();
         } else {
-            return null;
+            return Tasks.forException(new IllegalStateException("No user signed in"));
         }
     }
 
-    /**
-     * *** Update EatingPlace After Notification  ****
-     **/
-    private Task<Void> updateEatingPlaceNameAN(String uid, String eatingPlaceName) {
-        return getUsersCollection().document(uid).update("eatingPlace", eatingPlaceName);
+    /* Like or unlike a restaurant
+       Only the place id is sent, added or removed by Firestore, so the likes made at the same time from another device are kept.
+       Not coalesced: two likes in the same window would keep only the last one.
+       The task fails when nobody is signed in, so the caller can revert the button
+    */
+    public Task<Void> likeRestaurant(String placeId) {
+        return updateLikedPlaceIds(FieldValue.arrayUnion(placeId));
     }
 
-    private Task<Void> updateEatingPlaceIdAN(String uid, String eatingPlaceId) {
-        return getUsersCollection().document(uid).update("eatingPlaceId", eatingPlaceId);
+    public Task<Void> unlikeRestaurant(String placeId) {
+        return updateLikedPlaceIds(FieldValue.arrayRemove(placeId));
     }
 
-    public void updateEatingPlaceAN(String uId, String eatingPlaceName, String eatingPlaceId) {
-        this.updateEatingPlaceNameAN(uId, eatingPlaceName);
-        this.updateEatingPlaceIdAN(uId, eatingPlaceId);
+    private Task<Void> updateLikedPlaceIds(FieldValue likedPlaceIdsChange) {
+        String uid = this.getCurrentUserId();
+        if (uid != null) {
+            return this.getUsersCollection().document(uid).update(LIKED_PLACE_IDS, likedPlaceIdsChange);
+        } else {
+            return Tasks.forException(new IllegalStateException("No user signed in"));
+        }
     }
 
-    /**
-     * ****************************
-     **/
+    /* Move a like of listOfRestaurantsLiked, the likes by restaurant name of the previous versions, to likedPlaceIds
+       The place id is added and the name removed by the same update, the field itself is only deleted once it's empty
+    */
+    public Task<Void> migrateLegacyLike(String placeId, String restaurantName) {
+        String uid = this.getCurrentUserId();
+        if (uid != null) {
+            return this.getUsersCollection().document(uid).update(LIKED_PLACE_IDS, FieldValue.arrayUnion(placeId),
+                    LEGACY_LIKED_RESTAURANTS, FieldValue.arrayRemove(restaurantName));
+        } else {
+            return Tasks.forException(new IllegalStateException("No user signed in"));
+        }
+    }
 
-    // Update ListOfRestaurantsLiked
-    public Task<Void> updateListOfRestaurantsLiked(List<String> listOfRestaurantsLiked) {
+    public Task<Void> deleteLegacyLikes() {
         String uid = this.getCurrentUserId();
         if (uid != null) {
-            return this.getUsersCollection().document(uid).update(LIST_OF_RESTAURANTS_LIKED, listOfRestaurantsLiked);
+            return this.getUsersCollection().document(uid).update(LEGACY_LIKED_RESTAURANTS, FieldValue.delete());
         } else {
-            return null;
+            return Tasks.forException(new IllegalStateException("No user signed in"));
         }
     }
 
     // Delete the User from Firestore
     public Task<Void> deleteUserFromFirestore(String userId) {
-        return getUsersCollection().document(userId).delete();
+        WriteBatch batch = FirebaseFirestore.getInstance().batch();
+        batch.delete(getUsersCollection().document(userId));
+        batch.delete(getUserSummariesCollection().document(userId));
+        return batch.commit();
     }
 
 
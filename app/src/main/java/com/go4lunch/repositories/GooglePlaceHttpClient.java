@@ -0,0 +1,79 @@
+package com.go4lunch.repositories;
+
+import androidx.annotation.NonNull;
+
+import com.go4lunch.model.GooglePlaceService;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.BufferedSource;
+import okio.GzipSource;
+import okio.Okio;
+
+/**
+ * The OkHttpClient used for Google Place requests, with a disk cache and a shared connection pool.
+ * Gzip is negotiated and decoded transparently by OkHttp.
+ * Places API answers don't tell how long they can be kept, so each endpoint of GooglePlaceService declares its
+ * own max-age with the CACHE_MAX_AGE_HEADER, and the network interceptor rewrites the Cache-Control of the answer.
+ * It's created once by DI, with the cache directory of the application.
+ */
+public class GooglePlaceHttpClient {
+
+    private static final String CACHE_DIRECTORY = "google_place_http_cache";
+    private static final long CACHE_SIZE_BYTES = 10 * 1024 * 1024;
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_DURATION_MINUTES = 5;
+    private static final long TIMEOUT_SECONDS = 15;
+    private static final long MAX_INSPECTED_BODY_BYTES = 1024 * 1024;
+    // Places API answers 200 even for OVER_QUERY_LIMIT or REQUEST_DENIED, those must not be cached
+    private static final Pattern CACHEABLE_STATUS = Pattern.compile("\"status\"\\s*:\\s*\"(OK|ZERO_RESULTS)\"");
+
+    public static OkHttpClient create(File cacheDir) {
+        return new OkHttpClient.Builder()
+                .cache(new Cache(new File(cacheDir, CACHE_DIRECTORY), CACHE_SIZE_BYTES))
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_DURATION_MINUTES, TimeUnit.MINUTES))
+                .connectTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .readTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .addNetworkInterceptor(new CachePolicyInterceptor())
+                .build();
+    }
+
+    private static class CachePolicyInterceptor implements Interceptor {
+
+        @NonNull
+        @Override
+        public Response intercept(@NonNull Chain chain) throws IOException {
+            Request request = chain.request();
+            String maxAge = request.header(GooglePlaceService.CACHE_MAX_AGE_HEADER);
+            Response response = chain.proceed(request.newBuilder().removeHeader(GooglePlaceService.CACHE_MAX_AGE_HEADER).build());
+            if (maxAge == null || !response.isSuccessful() || !hasCacheableStatus(response)) {
+                return response;
+            }
+            return response.newBuilder()
+                    .removeHeader("Pragma")
+                    .removeHeader("Expires")
+                    .header("Cache-Control", "public, max-age=" + maxAge)
+                    .build();
+        }
+
+        // The body is peeked (not consumed), network interceptors see it still gzipped
+        private boolean hasCacheableStatus(Response response) throws IOException {
+            BufferedSource source = response.peekBody(MAX_INSPECTED_BODY_BYTES).source();
+            if ("gzip".equalsIgnoreCase(response.header("Content-Encoding"))) {
+                source = Okio.buffer(new GzipSource(source));
+            }
+            return CACHEABLE_STATUS.matcher(source.readUtf8()).find();
+        }
+    }
+
+
+}
@@ -1,23 +1,53 @@
 package com.go4lunch.repositories;
 
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
+import com.go4lunch.model.GooglePlaceGson;
 import com.go4lunch.model.GooglePlaceService;
 import com.go4lunch.model.autocomplete.AutocompleteSearch;
 import com.go4lunch.model.autocomplete.PredictionsResultItem;
+import com.go4lunch.model.details.DetailProjection;
 import com.go4lunch.model.details.DetailSearch;
+import com.go4lunch.model.details.PhotosItem;
+import com.go4lunch.model.details.RestaurantDetailResult;
 import com.go4lunch.model.nearbysearch.NearbySearch;
+import com.go4lunch.model.nearbysearch.ResultsItem;
+import com.go4lunch.repositories.cache.ExpiringLruCache;
+import com.go4lunch.repositories.cache.NearbyTileCache;
+import com.go4lunch.repositories.cache.RequestCoalescer;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+import okhttp3.OkHttpClient;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
 
 public class GooglePlaceRepository {
 
+    private static final int DETAIL_CACHE_MAX_SIZE_BYTES = 512 * 1024;
+    private static final long DETAIL_CACHE_TIME_TO_LIVE_MS = TimeUnit.MINUTES.toMillis(15);
+    // Same radius as the nearbysearch request of GooglePlaceService
+    private static final int NEARBY_SEARCH_RADIUS_METERS = 1500;
+    // Nearby search gives 20 results per page and at most 3 pages
+    private static final int NEARBY_SEARCH_MAX_PAGES = 3;
+    private static final long NEARBY_PAGE_TOKEN_DELAY_MS = 2000;
+    private static final int NEARBY_PAGE_TOKEN_MAX_ATTEMPTS = 3;
+    private static final long AUTOCOMPLETE_DEBOUNCE_MS = 300;
+    private static final int AUTOCOMPLETE_MAX_CONCURRENT_DETAILS = 3;
+    private static final long AUTOCOMPLETE_DETAILS_DEADLINE_MS = TimeUnit.SECONDS.toMillis(5);
+
     private final MutableLiveData<NearbySearch> nearbySearchResult = new MutableLiveData<>();
 
     public LiveData<NearbySearch> getNearbySearchResult() {
@@ -30,22 +60,127 @@ public class GooglePlaceRepository {
         return detailSearchResult;
     }
 
+    private final MutableLiveData<List<PredictionsResultItem>> autocompletePredictions = new MutableLiveData<>();
+
+    public LiveData<List<PredictionsResultItem>> getAutocompletePredictions() {
+        return autocompletePredictions;
+    }
+
+    // Details of the predictions already hydrated, in the ranking of the predictions
     private final MutableLiveData<List<DetailSearch>> autocompleteSearchResult = new MutableLiveData<>();
 
     public LiveData<List<DetailSearch>> getAutocompleteSearchResult() {
         return autocompleteSearchResult;
     }
 
-    // Get a Retrofit instance and the related endpoints
-    GooglePlaceService googlePlaceService = GooglePlaceService.retrofit.create(GooglePlaceService.class);
+    // The endpoints, on the client given by DI
+    private final GooglePlaceService googlePlaceService;
+
+    public GooglePlaceRepository(OkHttpClient httpClient) {
+        googlePlaceService = new Retrofit.Builder()
+                .baseUrl(GooglePlaceService.BASE_URL)
+                .client(httpClient)
+                .addConverterFactory(GsonConverterFactory.create(GooglePlaceGson.create()))
+                .build()
+                .create(GooglePlaceService.class);
+    }
+
+    // Details already fetched, keyed by placeId, so going back and forth between screens doesn't call the API again
+    // An entry keeps its DetailProjection and answers any request of the same or a smaller tier
+    private final ExpiringLruCache<String, DetailSearch> detailCache = new ExpiringLruCache<String, DetailSearch>(DETAIL_CACHE_MAX_SIZE_BYTES, DETAIL_CACHE_TIME_TO_LIVE_MS) {
+        @Override
+        protected int sizeOf(@NonNull String placeId, @NonNull DetailSearch detailSearch) {
+            return estimateSizeInBytes(detailSearch);
+        }
+    };
+
+    public ExpiringLruCache<String, DetailSearch> getDetailCache() {
+        return detailCache;
+    }
+
+    // Identical requests asked at the same time (map, list and autocomplete) share the same call
+    private final RequestCoalescer<NearbySearch> nearbySearchCoalescer = new RequestCoalescer<>();
+    private final RequestCoalescer<DetailSearch> detailCoalescer = new RequestCoalescer<>();
+
+    public int getCollapsedRequestCount() {
+        return nearbySearchCoalescer.getCollapsedCount() + detailCoalescer.getCollapsedCount();
+    }
+
+    // Autocomplete is debounced and cancellable instead of coalesced, a superseded search is never useful
+    private final Handler autocompleteHandler = new Handler(Looper.getMainLooper());
+    private Call<AutocompleteSearch> autocompleteCall;
+    private int autocompleteGeneration;
+
+    // Details of the predictions, fetched a few at a time when asked and emitted in the ranking of the predictions
+    private final DetailFanOut autocompleteDetailFanOut = new DetailFanOut(AUTOCOMPLETE_MAX_CONCURRENT_DETAILS, AUTOCOMPLETE_DETAILS_DEADLINE_MS, new DetailFanOut.Fetcher() {
+        @Nullable
+        @Override
+        public DetailSearch getCached(String placeId, DetailProjection projection) {
+            return getCachedDetail(placeId, projection);
+        }
+
+        @Override
+        public void fetch(String placeId, DetailProjection projection, Callback<DetailSearch> callback) {
+            enqueueDetail(placeId, projection, callback);
+        }
+    });
+
+    // Nearby results by geohash tile, small moves are answered without calling the API again
+    private final NearbyTileCache nearbyTileCache = new NearbyTileCache();
+    private double lastNearbyLatitude;
+    private double lastNearbyLongitude;
+
+    public NearbyTileCache getNearbyTileCache() {
+        return nearbyTileCache;
+    }
+
+    // Next pages of the latest nearby search, stopped by a new search or on demand
+    private final Handler nearbyPaginationHandler = new Handler(Looper.getMainLooper());
+    private Call<NearbySearch> nearbyPageCall;
+    private int nearbyPaginationGeneration;
+    // Tile whose next pages are on the way, null when none
+    private String nearbyPaginationTile;
 
-    // Create the call on GooglePlace API
+    /**
+     * Create the call on GooglePlace API
+     * The position is "latitude,longitude". If the tile of the position is already known we answer from the tile cache,
+     * else the tile is searched from its center and its results are kept for the next positions.
+     * The first page is published right away, the next ones are added to the tile and published as they arrive.
+     * A tile whose pagination was stopped is published with the pages it has and its next pages are asked again
+     */
     public void callRestaurant(String position) {
-        Call<NearbySearch> liveDataCall = googlePlaceService.getRestaurants(position);
-        liveDataCall.enqueue(new Callback<NearbySearch>() {
+        String[] latLng = position.split(",");
+        lastNearbyLatitude = Double.parseDouble(latLng[0]);
+        lastNearbyLongitude = Double.parseDouble(latLng[1]);
+        String tile = NearbyTileCache.getTile(lastNearbyLatitude, lastNearbyLongitude);
+        if (nearbyTileCache.hasFreshTile(tile)) {
+            publishNearbyResultsAroundLastPosition();
+            return;
+        }
+        NearbyTileCache.NextPage nextPage = nearbyTileCache.getNextPage(tile);
+        if (nextPage != null) {
+            publishNearbyResultsAroundLastPosition();
+            if (!tile.equals(nearbyPaginationTile)) {
+                stopNearbyPagination();
+                fetchNextNearbyPage(nearbyPaginationGeneration, tile, nextPage, 1, 0);
+            }
+            return;
+        }
+        String tileSearchPosition = NearbyTileCache.getTileSearchPosition(tile);
+        nearbySearchCoalescer.enqueue(tile, () -> googlePlaceService.getRestaurants(tileSearchPosition), new Callback<NearbySearch>() {
             @Override
             public void onResponse(Call<NearbySearch> call, Response<NearbySearch> response) {
-                if (response.isSuccessful()) {
+                if (response.isSuccessful() && response.body() != null && response.body().getResults() != null
+                        && ("OK".equals(response.body().getStatus()) || "ZERO_RESULTS".equals(response.body().getStatus()))) {
+                    String nextPageToken = response.body().getNextPageToken();
+                    NearbyTileCache.NextPage nextPage = nextPageToken != null ? new NearbyTileCache.NextPage(nextPageToken, 2) : null;
+                    nearbyTileCache.putTile(tile, response.body().getResults(), nextPage);
+                    publishNearbyResultsAroundLastPosition();
+                    stopNearbyPagination();
+                    if (nextPage != null) {
+                        fetchNextNearbyPage(nearbyPaginationGeneration, tile, nextPage, 1, NEARBY_PAGE_TOKEN_DELAY_MS);
+                    }
+                } else if (response.isSuccessful()) {
                     nearbySearchResult.setValue(response.body());
                 }
             }
@@ -57,9 +192,87 @@ public class GooglePlaceRepository {
         });
     }
 
+    /**
+     * A next_page_token is only accepted about 2 seconds after it's given, before that Google answers INVALID_REQUEST.
+     * So each page is asked NEARBY_PAGE_TOKEN_DELAY_MS after the previous one and asked again later if the token wasn't ready.
+     * If a page fails the tile stays incomplete and is resumed by the next callRestaurant, a token still refused after
+     * the last attempt has expired so the tile is removed and searched again
+     */
+    private void fetchNextNearbyPage(int generation, String tile, NearbyTileCache.NextPage nextPage, int attempt, long delayMs) {
+        nearbyPaginationTile = tile;
+        nearbyPaginationHandler.postDelayed(() -> {
+            if (generation != nearbyPaginationGeneration) {
+                return;
+            }
+            nearbyPageCall = googlePlaceService.getRestaurantsNextPage(nextPage.token);
+            nearbyPageCall.enqueue(new Callback<NearbySearch>() {
+                @Override
+                public void onResponse(Call<NearbySearch> call, Response<NearbySearch> response) {
+                    if (generation != nearbyPaginationGeneration) {
+                        return;
+                    }
+                    nearbyPageCall = null;
+                    nearbyPaginationTile = null;
+                    NearbySearch nearbySearch = response.body();
+                    if (!response.isSuccessful() || nearbySearch == null) {
+                        Log.w("[THIERRY]", "Nearby page " + nextPage.page + " of " + tile + " failed : " + response.code());
+                        return;
+                    }
+                    if ("INVALID_REQUEST".equals(nearbySearch.getStatus()) && attempt < NEARBY_PAGE_TOKEN_MAX_ATTEMPTS) {
+                        fetchNextNearbyPage(generation, tile, nextPage, attempt + 1, NEARBY_PAGE_TOKEN_DELAY_MS);
+                    } else if ("OK".equals(nearbySearch.getStatus()) && nearbySearch.getResults() != null) {
+                        NearbyTileCache.NextPage followingPage = nearbySearch.getNextPageToken() != null && nextPage.page < NEARBY_SEARCH_MAX_PAGES
+                                ? new NearbyTileCache.NextPage(nearbySearch.getNextPageToken(), nextPage.page + 1) : null;
+                        if (nearbyTileCache.addPage(tile, nearbySearch.getResults(), followingPage)) {
+                            publishNearbyResultsAroundLastPosition();
+                            if (followingPage != null) {
+                                fetchNextNearbyPage(generation, tile, followingPage, 1, NEARBY_PAGE_TOKEN_DELAY_MS);
+                            }
+                        }
+                    } else {
+                        Log.w("[THIERRY]", "Nearby page " + nextPage.page + " of " + tile + " refused : " + nearbySearch.getStatus());
+                        nearbyTileCache.removeTile(tile);
+                    }
+                }
+
+                @Override
+                public void onFailure(Call<NearbySearch> call, Throwable t) {
+                    if (generation != nearbyPaginationGeneration) {
+                        return;
+                    }
+                    nearbyPageCall = null;
+                    nearbyPaginationTile = null;
+                    Log.w("[THIERRY]", "Nearby page " + nextPage.page + " of " + tile + " failed : " + t.getMessage());
+                }
+            });
+        }, delayMs);
+    }
+
+    // The pages already received stay in the tile cache, the tile is resumed by the next callRestaurant
+    public void stopNearbyPagination() {
+        nearbyPaginationGeneration++;
+        nearbyPaginationTile = null;
+        nearbyPaginationHandler.removeCallbacksAndMessages(null);
+        if (nearbyPageCall != null) {
+            nearbyPageCall.cancel();
+            nearbyPageCall = null;
+        }
+    }
+
+    private void publishNearbyResultsAroundLastPosition() {
+        NearbySearch nearbySearch = new NearbySearch();
+        nearbySearch.setStatus("OK");
+        nearbySearch.setResults(nearbyTileCache.getResultsAround(lastNearbyLatitude, lastNearbyLongitude, NEARBY_SEARCH_RADIUS_METERS));
+        nearbySearchResult.setValue(nearbySearch);
+    }
+
     public void callRestaurantDetail(String placeId) {
-        Call<DetailSearch> liveDataCall = googlePlaceService.getRestaurantsDetails(placeId);
-        liveDataCall.enqueue(new Callback<DetailSearch>() {
+        DetailSearch cachedDetail = getCachedDetail(placeId, DetailProjection.FULL);
+        if (cachedDetail != null) {
+            detailSearchResult.setValue(cachedDetail);
+            return;
+        }
+        enqueueDetail(placeId, DetailProjection.FULL, new Callback<DetailSearch>() {
             @Override
             public void onResponse(Call<DetailSearch> call, Response<DetailSearch> response) {
                 if (response.isSuccessful()) {
@@ -75,34 +288,55 @@ public class GooglePlaceRepository {
     }
 
     /**
-     * We start Autocomplete request and after we start a loop that iterates over each PredictionResultItem (5 restaurants) and we took their placeId for directly start
-     * DetailRequest in which thanks to a List of DetailSearch we will add the result of Detail request on the restaurant of Autocomplete on which we iterate, and to finish
-     * we set our LiveData autocompleteSearchResult who get result of Autocomplete request with last List of DetailSearch
+     * As-you-type search: the request is only sent once the user stopped typing for AUTOCOMPLETE_DEBOUNCE_MS.
+     * An empty input cancels the search in progress and clears the results.
+     */
+    public void searchAutocomplete(String position, String input) {
+        autocompleteHandler.removeCallbacksAndMessages(null);
+        if (input == null || input.trim().isEmpty()) {
+            cancelAutocomplete();
+            autocompletePredictions.setValue(new ArrayList<>());
+            autocompleteSearchResult.setValue(new ArrayList<>());
+            return;
+        }
+        autocompleteHandler.postDelayed(() -> callAutocompleteResult(position, input), AUTOCOMPLETE_DEBOUNCE_MS);
+    }
+
+    // A new search makes the previous one obsolete, its call is canceled and its late answers are ignored
+    private void cancelAutocomplete() {
+        autocompleteGeneration++;
+        autocompleteDetailFanOut.cancel();
+        if (autocompleteCall != null) {
+            autocompleteCall.cancel();
+            autocompleteCall = null;
+        }
+    }
+
+    /**
+     * We start Autocomplete request and publish its predictions (5 restaurants) right away, the rows are rendered from them.
+     * Details are only fetched for the predictions asked with hydrateAutocompleteResult (rows bound on screen, pins on the map),
+     * at most AUTOCOMPLETE_MAX_CONCURRENT_DETAILS at once, and autocompleteSearchResult is set each time a detail arrives.
+     * Only the answers of the latest search reach autocompletePredictions and autocompleteSearchResult
      */
     public void callAutocompleteResult(String position, String input) {
-        Call<AutocompleteSearch> liveDataCall = googlePlaceService.getAutocompleteResult(position, input);
-        liveDataCall.enqueue(new Callback<AutocompleteSearch>() {
+        autocompleteHandler.removeCallbacksAndMessages(null);
+        cancelAutocomplete();
+        int generation = autocompleteGeneration;
+        autocompleteCall = googlePlaceService.getAutocompleteResult(position, input);
+        autocompleteCall.enqueue(new Callback<AutocompleteSearch>() {
             @Override
             public void onResponse(Call<AutocompleteSearch> call, Response<AutocompleteSearch> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    List<DetailSearch> detailSearchList = new ArrayList<>();
+                if (generation != autocompleteGeneration) {
+                    return;
+                }
+                autocompleteCall = null;
+                if (response.isSuccessful() && response.body() != null && response.body().getPredictions() != null) {
+                    List<String> placeIds = new ArrayList<>();
                     for (PredictionsResultItem prediction : response.body().getPredictions()) {
-                        Call<DetailSearch> liveDataCall = googlePlaceService.getRestaurantsDetails(prediction.getPlaceId());
-                        liveDataCall.enqueue(new Callback<DetailSearch>() {
-                            @Override
-                            public void onResponse(Call<DetailSearch> call, Response<DetailSearch> response) {
-                                if (response.isSuccessful()) {
-                                    detailSearchList.add(response.body());
-                                    autocompleteSearchResult.setValue(detailSearchList);
-                                }
-                            }
-
-                            @Override
-                            public void onFailure(Call<DetailSearch> call, Throwable t) {
-
-                            }
-                        });
+                        placeIds.add(prediction.getPlaceId());
                     }
+                    autocompletePredictions.setValue(response.body().getPredictions());
+                    autocompleteDetailFanOut.start(placeIds, autocompleteSearchResult::setValue);
                 }
             }
 
@@ -113,5 +347,69 @@ public class GooglePlaceRepository {
         });
     }
 
+    // Fetch the detail of a prediction of the latest search if it's not known yet with the fields of this tier
+    public void hydrateAutocompleteResult(String placeId, DetailProjection projection) {
+        autocompleteDetailFanOut.request(placeId, projection);
+    }
+
+    @Nullable
+    private DetailSearch getCachedDetail(String placeId, DetailProjection projection) {
+        DetailSearch cachedDetail = detailCache.get(placeId);
+        return cachedDetail != null && cachedDetail.getProjection().covers(projection) ? cachedDetail : null;
+    }
+
+    // Every detail answer is tagged with its tier and goes through the cache before reaching the caller
+    private void enqueueDetail(String placeId, DetailProjection projection, Callback<DetailSearch> callback) {
+        detailCoalescer.enqueue(placeId + "/" + projection, () -> googlePlaceService.getRestaurantsDetails(placeId, projection.getFields()), new Callback<DetailSearch>() {
+            @Override
+            public void onResponse(Call<DetailSearch> call, Response<DetailSearch> response) {
+                if (response.isSuccessful() && response.body() != null) {
+                    response.body().setProjection(projection);
+                    cacheDetail(placeId, response.body());
+                }
+                callback.onResponse(call, response);
+            }
+
+            @Override
+            public void onFailure(Call<DetailSearch> call, Throwable t) {
+                callback.onFailure(call, t);
+            }
+        });
+    }
+
+    // Only complete answers are kept, an error status (OVER_QUERY_LIMIT, NOT_FOUND...) must be retried next time
+    // A smaller tier never replaces a bigger one still fresh
+    private void cacheDetail(String placeId, @Nullable DetailSearch detailSearch) {
+        if (detailSearch != null && detailSearch.getResult() != null && "OK".equals(detailSearch.getStatus())
+                && getCachedDetail(placeId, detailSearch.getProjection()) == null) {
+            detailCache.put(placeId, detailSearch);
+        }
+    }
+
+    // Rough weight of a DetailSearch in memory, mostly made of its strings (2 bytes per char)
+    private static int estimateSizeInBytes(DetailSearch detailSearch) {
+        int chars = 0;
+        RestaurantDetailResult result = detailSearch.getResult();
+        if (result != null) {
+            chars += length(result.getPlaceId()) + length(result.getName()) + length(result.getVicinity())
+                    + length(result.getWebsite()) + length(result.getUrl()) + length(result.getFormattedPhoneNumber());
+            if (result.getPhotos() != null) {
+                for (PhotosItem photo : result.getPhotos()) {
+                    chars += length(photo.getPhotoReference());
+                }
+            }
+            if (result.getOpeningHours() != null && result.getOpeningHours().getWeekdayText() != null) {
+                for (String weekdayText : result.getOpeningHours().getWeekdayText()) {
+                    chars += length(weekdayText);
+                }
+            }
+        }
+        return 256 + 2 * chars;
+    }
+
+    private static int length(@Nullable String s) {
+        return s != null ? s.length() : 0;
+    }
+
 
 }
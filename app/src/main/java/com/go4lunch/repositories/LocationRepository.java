@@ -0,0 +1,25 @@
+package com.go4lunch.repositories;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.google.android.gms.maps.model.LatLng;
+
+/**
+ * Last position of the user, given by the location updates of the map.
+ * The screens which display distances observe it instead of reading the position when they bind a row.
+ */
+public class LocationRepository {
+
+    private final MutableLiveData<LatLng> myPosition = new MutableLiveData<>();
+
+    public LiveData<LatLng> getMyPosition() {
+        return myPosition;
+    }
+
+    public void setMyPosition(LatLng position) {
+        myPosition.setValue(position);
+    }
+
+
+}
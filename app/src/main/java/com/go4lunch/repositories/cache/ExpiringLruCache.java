@@ -0,0 +1,133 @@
+package com.go4lunch.repositories.cache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.collection.LruCache;
+
+import java.util.Locale;
+
+/**
+ * Size-bounded LRU cache in which every entry also expires after a fixed time to live.
+ * Like androidx LruCache, the size of an entry is given by sizeOf(), so the cache can be bounded
+ * by an estimated weight (bytes) instead of a number of entries.
+ * An expired entry is dropped when it is read and counted as a miss.
+ */
+public class ExpiringLruCache<K, V> {
+
+    public interface Clock {
+        long now();
+    }
+
+    private static final Clock SYSTEM_CLOCK = System::currentTimeMillis;
+
+    private final LruCache<K, Entry<V>> cache;
+    private final long timeToLiveMs;
+    private final Clock clock;
+    private int hitCount;
+    private int missCount;
+    private int expiredCount;
+
+    public ExpiringLruCache(int maxSize, long timeToLiveMs) {
+        this(maxSize, timeToLiveMs, SYSTEM_CLOCK);
+    }
+
+    public ExpiringLruCache(int maxSize, long timeToLiveMs, @NonNull Clock clock) {
+        this.timeToLiveMs = timeToLiveMs;
+        this.clock = clock;
+        this.cache = new LruCache<K, Entry<V>>(maxSize) {
+            @Override
+            protected int sizeOf(@NonNull K key, @NonNull Entry<V> entry) {
+                return ExpiringLruCache.this.sizeOf(key, entry.value);
+            }
+        };
+    }
+
+    // Weight of one entry, 1 by default so the cache is bounded by its number of entries
+    protected int sizeOf(@NonNull K key, @NonNull V value) {
+        return 1;
+    }
+
+    @Nullable
+    public synchronized V get(@NonNull K key) {
+        Entry<V> entry = cache.get(key);
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        if (entry.expiresAt <= clock.now()) {
+            cache.remove(key);
+            expiredCount++;
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.value;
+    }
+
+    public synchronized void put(@NonNull K key, @NonNull V value) {
+        cache.put(key, new Entry<>(value, clock.now() + timeToLiveMs));
+    }
+
+    // Changes the value of an entry but keeps its expiry, false when the entry is absent or expired
+    public synchronized boolean replace(@NonNull K key, @NonNull V value) {
+        Entry<V> entry = cache.get(key);
+        if (entry == null || entry.expiresAt <= clock.now()) {
+            return false;
+        }
+        cache.put(key, new Entry<>(value, entry.expiresAt));
+        return true;
+    }
+
+    public synchronized void remove(@NonNull K key) {
+        cache.remove(key);
+    }
+
+    public synchronized void evictAll() {
+        cache.evictAll();
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public synchronized int maxSize() {
+        return cache.maxSize();
+    }
+
+    public synchronized int hitCount() {
+        return hitCount;
+    }
+
+    public synchronized int missCount() {
+        return missCount;
+    }
+
+    public synchronized int expiredCount() {
+        return expiredCount;
+    }
+
+    public synchronized int evictionCount() {
+        return cache.evictionCount();
+    }
+
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        int accesses = hitCount + missCount;
+        int hitPercent = accesses != 0 ? (100 * hitCount / accesses) : 0;
+        return String.format(Locale.US, "ExpiringLruCache[size=%d,maxSize=%d,hits=%d,misses=%d,expired=%d,evictions=%d,hitRate=%d%%]",
+                size(), maxSize(), hitCount, missCount, expiredCount, evictionCount(), hitPercent);
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+
+}
@@ -0,0 +1,120 @@
+package com.go4lunch.repositories.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Geohash encoding: the world is cut in cells, each character of the hash splits its parent cell in 32.
+ * A precision of 6 characters gives cells of about 1.2 km x 0.6 km.
+ */
+public final class Geohash {
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    private Geohash() {
+    }
+
+    public static String encode(double latitude, double longitude, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int index = 0;
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double midLng = (minLng + maxLng) / 2;
+                if (longitude >= midLng) {
+                    index = (index << 1) | 1;
+                    minLng = midLng;
+                } else {
+                    index = index << 1;
+                    maxLng = midLng;
+                }
+            } else {
+                double midLat = (minLat + maxLat) / 2;
+                if (latitude >= midLat) {
+                    index = (index << 1) | 1;
+                    minLat = midLat;
+                } else {
+                    index = index << 1;
+                    maxLat = midLat;
+                }
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                hash.append(BASE32.charAt(index));
+                bit = 0;
+                index = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    // Return {minLat, minLng, maxLat, maxLng} of the cell
+    public static double[] bounds(String hash) {
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+        boolean evenBit = true;
+        for (int i = 0; i < hash.length(); i++) {
+            int index = BASE32.indexOf(hash.charAt(i));
+            if (index == -1) {
+                throw new IllegalArgumentException("Invalid geohash " + hash);
+            }
+            for (int n = 4; n >= 0; n--) {
+                int bitN = (index >> n) & 1;
+                if (evenBit) {
+                    double midLng = (minLng + maxLng) / 2;
+                    if (bitN == 1) {
+                        minLng = midLng;
+                    } else {
+                        maxLng = midLng;
+                    }
+                } else {
+                    double midLat = (minLat + maxLat) / 2;
+                    if (bitN == 1) {
+                        minLat = midLat;
+                    } else {
+                        maxLat = midLat;
+                    }
+                }
+                evenBit = !evenBit;
+            }
+        }
+        return new double[]{minLat, minLng, maxLat, maxLng};
+    }
+
+    // Return {lat, lng} of the center of the cell
+    public static double[] center(String hash) {
+        double[] bounds = bounds(hash);
+        return new double[]{(bounds[0] + bounds[2]) / 2, (bounds[1] + bounds[3]) / 2};
+    }
+
+    // The (up to) 8 cells of the same precision around the given one
+    public static List<String> neighbours(String hash) {
+        double[] bounds = bounds(hash);
+        double height = bounds[2] - bounds[0];
+        double width = bounds[3] - bounds[1];
+        double centerLat = (bounds[0] + bounds[2]) / 2;
+        double centerLng = (bounds[1] + bounds[3]) / 2;
+        List<String> neighbours = new ArrayList<>(8);
+        for (int dLat = -1; dLat <= 1; dLat++) {
+            for (int dLng = -1; dLng <= 1; dLng++) {
+                double lat = centerLat + dLat * height;
+                if ((dLat == 0 && dLng == 0) || lat > 90 || lat < -90) {
+                    continue;
+                }
+                double lng = centerLng + dLng * width;
+                if (lng > 180) {
+                    lng -= 360;
+                } else if (lng < -180) {
+                    lng += 360;
+                }
+                neighbours.add(encode(lat, lng, hash.length()));
+            }
+        }
+        return neighbours;
+    }
+
+
+}
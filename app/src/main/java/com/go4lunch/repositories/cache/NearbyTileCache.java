@@ -0,0 +1,168 @@
+package com.go4lunch.repositories.cache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.go4lunch.model.nearbysearch.ResultsItem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nearby search results stored by geohash tile.
+ * A tile is fetched once with a nearby search centered on it, then any position inside the tile is answered
+ * from the results of the tile and of its neighbours already known, filtered on the search radius.
+ * So walking around only calls the API when entering a tile never seen or whose results have expired.
+ * A tile whose next pages are still to come is kept with its next page, it isn't fresh until its last page is added.
+ */
+public class NearbyTileCache {
+
+    /**
+     * Token of the next page of an incomplete tile and the number of this page
+     */
+    public static final class NextPage {
+
+        public final String token;
+        public final int page;
+
+        public NextPage(@NonNull String token, int page) {
+            this.token = token;
+            this.page = page;
+        }
+    }
+
+    public static final int TILE_PRECISION = 6;
+    private static final int MAX_TILES = 64;
+    private static final long TILE_TIME_TO_LIVE_MS = TimeUnit.MINUTES.toMillis(15);
+    private static final double EARTH_RADIUS_METERS = 6371009;
+
+    private final ExpiringLruCache<String, List<ResultsItem>> tiles;
+    private final Map<String, NextPage> nextPages = new HashMap<>();
+
+    public NearbyTileCache() {
+        this(new ExpiringLruCache<>(MAX_TILES, TILE_TIME_TO_LIVE_MS));
+    }
+
+    public NearbyTileCache(ExpiringLruCache<String, List<ResultsItem>> tiles) {
+        this.tiles = tiles;
+    }
+
+    public static String getTile(double latitude, double longitude) {
+        return Geohash.encode(latitude, longitude, TILE_PRECISION);
+    }
+
+    // Position of the nearby search of a tile, with a fixed format so the same tile always gives the same url
+    public static String getTileSearchPosition(String tile) {
+        double[] center = Geohash.center(tile);
+        return String.format(Locale.US, "%.6f,%.6f", center[0], center[1]);
+    }
+
+    // Not expired and with all its pages
+    public boolean hasFreshTile(String tile) {
+        if (tiles.get(tile) == null) {
+            nextPages.remove(tile);
+            return false;
+        }
+        return !nextPages.containsKey(tile);
+    }
+
+    public void putTile(String tile, @NonNull List<ResultsItem> results) {
+        putTile(tile, results, null);
+    }
+
+    // First page of a tile, the time to live of the tile starts now
+    public void putTile(String tile, @NonNull List<ResultsItem> results, @Nullable NextPage nextPage) {
+        tiles.put(tile, results);
+        setNextPage(tile, nextPage);
+    }
+
+    /**
+     * Next page of a tile, added to its results without changing its expiry.
+     * False when the tile has expired or was evicted meanwhile, the page is then dropped.
+     */
+    public boolean addPage(String tile, @NonNull List<ResultsItem> results, @Nullable NextPage nextPage) {
+        List<ResultsItem> tileResults = tiles.get(tile);
+        if (tileResults == null) {
+            nextPages.remove(tile);
+            return false;
+        }
+        List<ResultsItem> pagedResults = new ArrayList<>(tileResults);
+        pagedResults.addAll(results);
+        if (!tiles.replace(tile, pagedResults)) {
+            nextPages.remove(tile);
+            return false;
+        }
+        setNextPage(tile, nextPage);
+        return true;
+    }
+
+    // Next page to ask for an incomplete tile, null when the tile is complete or not in the cache
+    @Nullable
+    public NextPage getNextPage(String tile) {
+        NextPage nextPage = nextPages.get(tile);
+        if (nextPage != null && tiles.get(tile) == null) {
+            nextPages.remove(tile);
+            return null;
+        }
+        return nextPage;
+    }
+
+    public void removeTile(String tile) {
+        tiles.remove(tile);
+        nextPages.remove(tile);
+    }
+
+    private void setNextPage(String tile, @Nullable NextPage nextPage) {
+        if (nextPage != null) {
+            nextPages.put(tile, nextPage);
+        } else {
+            nextPages.remove(tile);
+        }
+    }
+
+    public ExpiringLruCache<String, List<ResultsItem>> getTiles() {
+        return tiles;
+    }
+
+    /**
+     * Restaurants within radiusMeters of the position, taken from its tile first then from the neighbour tiles
+     * already in the cache, without duplicates
+     */
+    public List<ResultsItem> getResultsAround(double latitude, double longitude, int radiusMeters) {
+        String tile = getTile(latitude, longitude);
+        List<String> coveringTiles = new ArrayList<>();
+        coveringTiles.add(tile);
+        coveringTiles.addAll(Geohash.neighbours(tile));
+
+        Map<String, ResultsItem> resultsByPlaceId = new LinkedHashMap<>();
+        for (String coveringTile : coveringTiles) {
+            List<ResultsItem> tileResults = tiles.get(coveringTile);
+            if (tileResults == null) {
+                continue;
+            }
+            for (ResultsItem result : tileResults) {
+                if (!resultsByPlaceId.containsKey(result.getPlaceId()) && result.getGeometry() != null && result.getGeometry().getLocation() != null
+                        && distanceInMeters(latitude, longitude, result.getGeometry().getLocation().getLat(), result.getGeometry().getLocation().getLng()) <= radiusMeters) {
+                    resultsByPlaceId.put(result.getPlaceId(), result);
+                }
+            }
+        }
+        return new ArrayList<>(resultsByPlaceId.values());
+    }
+
+    // Haversine distance, same earth radius as SphericalUtil
+    public static double distanceInMeters(double fromLat, double fromLng, double toLat, double toLng) {
+        double dLat = Math.toRadians(toLat - fromLat);
+        double dLng = Math.toRadians(toLng - fromLng);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(fromLat)) * Math.cos(Math.toRadians(toLat)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+
+}
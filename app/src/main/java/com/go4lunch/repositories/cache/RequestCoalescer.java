@@ -0,0 +1,71 @@
+package com.go4lunch.repositories.cache;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Single-flight for Retrofit calls: while a request is in flight for a key, any identical request
+ * waits for it instead of going to the network. All the callers then receive the same decoded response.
+ */
+public class RequestCoalescer<T> {
+
+    public interface CallFactory<T> {
+        Call<T> create();
+    }
+
+    private final Map<String, List<Callback<T>>> inFlightRequests = new HashMap<>();
+    private int collapsedCount;
+
+    public void enqueue(@NonNull String key, @NonNull CallFactory<T> callFactory, @NonNull Callback<T> callback) {
+        synchronized (this) {
+            List<Callback<T>> waitingCallbacks = inFlightRequests.get(key);
+            if (waitingCallbacks != null) {
+                waitingCallbacks.add(callback);
+                collapsedCount++;
+                return;
+            }
+            waitingCallbacks = new ArrayList<>();
+            waitingCallbacks.add(callback);
+            inFlightRequests.put(key, waitingCallbacks);
+        }
+        callFactory.create().enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(@NonNull Call<T> call, @NonNull Response<T> response) {
+                for (Callback<T> waitingCallback : takeWaitingCallbacks(key)) {
+                    waitingCallback.onResponse(call, response);
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<T> call, @NonNull Throwable t) {
+                for (Callback<T> waitingCallback : takeWaitingCallbacks(key)) {
+                    waitingCallback.onFailure(call, t);
+                }
+            }
+        });
+    }
+
+    // Number of requests that didn't go to the network because an identical one was already in flight
+    public synchronized int getCollapsedCount() {
+        return collapsedCount;
+    }
+
+    public synchronized int getInFlightCount() {
+        return inFlightRequests.size();
+    }
+
+    private synchronized List<Callback<T>> takeWaitingCallbacks(String key) {
+        List<Callback<T>> waitingCallbacks = inFlightRequests.remove(key);
+        return waitingCallbacks != null ? waitingCallbacks : new ArrayList<>();
+    }
+
+
+}
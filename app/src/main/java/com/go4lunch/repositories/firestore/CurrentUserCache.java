@@ -0,0 +1,69 @@
+package com.go4lunch.repositories.firestore;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.go4lunch.model.firestore.User;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.ListenerRegistration;
+
+/**
+ * The document of the logged user, kept up to date by one snapshot listener for the whole session.
+ * Once the first snapshot is received the user is read without any request, the listener also gives the local writes
+ * right away. Must be used from the main thread.
+ */
+public class CurrentUserCache {
+
+    private final MutableLiveData<User> currentUser = new MutableLiveData<>();
+    private ListenerRegistration registration;
+    private String uid;
+
+    // Listen the document of the user, another user replaces the previous session
+    public void start(DocumentReference userDocument) {
+        if (registration != null && userDocument.getId().equals(uid)) {
+            return;
+        }
+        stop();
+        uid = userDocument.getId();
+        registration = userDocument.addSnapshotListener((value, error) -> {
+            if (value != null && value.exists()) {
+                currentUser.setValue(value.toObject(User.class));
+            }
+        });
+    }
+
+    // To call when the user logs out or is deleted
+    public void stop() {
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+        uid = null;
+        currentUser.setValue(null);
+    }
+
+    public LiveData<User> getCurrentUser() {
+        return currentUser;
+    }
+
+    // The cached user, null until the first snapshot is received
+    @Nullable
+    public User get() {
+        return currentUser.getValue();
+    }
+
+    // Resolved at once when the cache is warm, from a request to the document otherwise
+    public Task<User> getUser(DocumentReference userDocument) {
+        start(userDocument);
+        User user = get();
+        if (user != null) {
+            return Tasks.forResult(user);
+        }
+        return userDocument.get().continueWith(task -> task.getResult().toObject(User.class));
+    }
+
+
+}
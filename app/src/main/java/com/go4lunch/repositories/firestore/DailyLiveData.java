@@ -0,0 +1,79 @@
+package com.go4lunch.repositories.firestore;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+
+import java.util.Calendar;
+
+/**
+ * LiveData of the source of the current day.
+ * The day is checked when an observer becomes active and at midnight while it's observed, so a screen left open
+ * across midnight moves to the new day. The source of the previous day is then released.
+ * Must be used from the main thread.
+ */
+public class DailyLiveData<T> extends MediatorLiveData<T> {
+
+    public interface DaySource<T> {
+        String getToday();
+
+        LiveData<T> get(String day);
+
+        void release(String day);
+    }
+
+    // The date is read a little after midnight so it has surely changed
+    private static final long DAY_CHANGE_MARGIN_MS = 1000;
+
+    private final DaySource<T> daySource;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable dayChangeRunnable = this::refreshDay;
+    private String day;
+    private LiveData<T> dayLiveData;
+
+    public DailyLiveData(DaySource<T> daySource) {
+        this.daySource = daySource;
+    }
+
+    @Override
+    protected void onActive() {
+        super.onActive();
+        refreshDay();
+    }
+
+    @Override
+    protected void onInactive() {
+        super.onInactive();
+        handler.removeCallbacks(dayChangeRunnable);
+    }
+
+    private void refreshDay() {
+        String today = daySource.getToday();
+        if (!today.equals(day)) {
+            if (dayLiveData != null) {
+                removeSource(dayLiveData);
+                daySource.release(day);
+            }
+            day = today;
+            dayLiveData = daySource.get(today);
+            addSource(dayLiveData, this::setValue);
+        }
+        handler.removeCallbacks(dayChangeRunnable);
+        handler.postDelayed(dayChangeRunnable, getMillisUntilTomorrow());
+    }
+
+    private static long getMillisUntilTomorrow() {
+        Calendar tomorrow = Calendar.getInstance();
+        long now = tomorrow.getTimeInMillis();
+        tomorrow.add(Calendar.DAY_OF_YEAR, 1);
+        tomorrow.set(Calendar.HOUR_OF_DAY, 0);
+        tomorrow.set(Calendar.MINUTE, 0);
+        tomorrow.set(Calendar.SECOND, 0);
+        tomorrow.set(Calendar.MILLISECOND, 0);
+        return tomorrow.getTimeInMillis() - now + DAY_CHANGE_MARGIN_MS;
+    }
+
+
+}
@@ -0,0 +1,84 @@
+package com.go4lunch.repositories.firestore;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Field updates of the same document asked within WINDOW_MS are sent as one update, so the fields change together
+ * and the listeners of the document get one snapshot instead of one per field.
+ * Every update asked in the window gets the task of the write that contains it. Must be used from the main thread.
+ * The fields can also be copied to a second document, merged into it in the same batch so both documents change together
+ * even when the second one doesn't exist yet.
+ */
+public class DocumentWriteCoalescer {
+
+    private static final long WINDOW_MS = 200;
+
+    private final Map<String, PendingWrite> pendingWriteByPath = new HashMap<>();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    public Task<Void> update(DocumentReference document, String field, @Nullable Object value) {
+        return update(document, null, field, value);
+    }
+
+    // The fields of the document are also merged into mirrorDocument, mirrorDocument must be the same for every update of the document
+    public Task<Void> update(DocumentReference document, @Nullable DocumentReference mirrorDocument, String field, @Nullable Object value) {
+        PendingWrite pendingWrite = pendingWriteByPath.get(document.getPath());
+        if (pendingWrite == null) {
+            pendingWrite = new PendingWrite(document, mirrorDocument);
+            pendingWriteByPath.put(document.getPath(), pendingWrite);
+            PendingWrite writeToFlush = pendingWrite;
+            handler.postDelayed(() -> flush(writeToFlush), WINDOW_MS);
+        }
+        // A field updated twice in the window keeps its last value
+        pendingWrite.fields.put(field, value);
+        return pendingWrite.completion.getTask();
+    }
+
+    private void flush(PendingWrite pendingWrite) {
+        pendingWriteByPath.remove(pendingWrite.document.getPath());
+        Task<Void> write;
+        if (pendingWrite.mirrorDocument == null) {
+            write = pendingWrite.document.update(pendingWrite.fields);
+        } else {
+            WriteBatch batch = pendingWrite.document.getFirestore().batch();
+            batch.update(pendingWrite.document, pendingWrite.fields);
+            batch.set(pendingWrite.mirrorDocument, pendingWrite.fields, SetOptions.merge());
+            write = batch.commit();
+        }
+        write.addOnCompleteListener(task -> {
+            if (task.isSuccessful()) {
+                pendingWrite.completion.setResult(null);
+            } else {
+                pendingWrite.completion.setException(task.getException());
+            }
+        });
+    }
+
+    private static class PendingWrite {
+
+        private final DocumentReference document;
+        @Nullable
+        private final DocumentReference mirrorDocument;
+        private final Map<String, Object> fields = new HashMap<>();
+        private final TaskCompletionSource<Void> completion = new TaskCompletionSource<>();
+
+        PendingWrite(DocumentReference document, @Nullable DocumentReference mirrorDocument) {
+            this.document = document;
+            this.mirrorDocument = mirrorDocument;
+        }
+    }
+
+
+}
@@ -0,0 +1,241 @@
+package com.go4lunch.repositories.firestore;
+
+import androidx.annotation.NonNull;
+
+import com.go4lunch.model.firestore.Message;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Messages of a conversation loaded by pages, the newest page first.
+ * Only the newest page is listened, the older pages are read once when the list is scrolled up. The window of messages in
+ * memory is limited to maxWindowSize: past it the messages at the other end are dropped, and when the newest ones are dropped
+ * the listener is removed until the list is scrolled down again to the end. Must be used from the main thread.
+ */
+public class PagedChatSource {
+
+    public interface Listener {
+        // insertedAtTop is the number of older messages added at the start of the list, to keep the scroll position,
+        // negative when messages were dropped at the start
+        void onMessagesChanged(@NonNull List<Message> messages, int insertedAtTop);
+    }
+
+    private final Query query;
+    private final int pageSize;
+    private final int maxWindowSize;
+    private final Listener listener;
+
+    // Messages read once, before the newest page
+    private final List<LoadedMessage> olderMessages = new ArrayList<>();
+    // Messages of the listener, empty when it's removed
+    private final List<LoadedMessage> newestPage = new ArrayList<>();
+    private ListenerRegistration newestPageRegistration;
+    private boolean hasOlder = true;
+    private boolean isLoading;
+    // Increased when the window is reset, the pages asked before are ignored
+    private int generation;
+
+    // The query must be ordered by date, from the oldest message to the newest
+    public PagedChatSource(Query query, int pageSize, int maxWindowSize, Listener listener) {
+        this.query = query;
+        this.pageSize = pageSize;
+        this.maxWindowSize = maxWindowSize;
+        this.listener = listener;
+    }
+
+    // Show the newest messages, from an empty window
+    public void start() {
+        stop();
+        generation++;
+        olderMessages.clear();
+        hasOlder = true;
+        isLoading = false;
+        listenNewestPage();
+    }
+
+    public void stop() {
+        if (newestPageRegistration != null) {
+            newestPageRegistration.remove();
+            newestPageRegistration = null;
+        }
+        newestPage.clear();
+    }
+
+    public boolean isShowingLatest() {
+        return newestPageRegistration != null;
+    }
+
+    public int getWindowSize() {
+        return olderMessages.size() + newestPage.size();
+    }
+
+    // Called when the list is scrolled to the top
+    public void loadOlderPage() {
+        DocumentSnapshot oldest = getOldest();
+        if (isLoading || !hasOlder || oldest == null) {
+            return;
+        }
+        isLoading = true;
+        int pageGeneration = generation;
+        query.endBefore(oldest).limitToLast(pageSize).get().addOnCompleteListener(task -> {
+            if (pageGeneration != generation) {
+                return;
+            }
+            isLoading = false;
+            if (!task.isSuccessful()) {
+                return;
+            }
+            List<LoadedMessage> page = toLoadedMessages(task.getResult().getDocuments());
+            hasOlder = page.size() == pageSize;
+            olderMessages.addAll(0, page);
+            trimNewest();
+            publish(page.size());
+        });
+    }
+
+    // Called when the list is scrolled to the bottom, only useful once the newest messages have been dropped
+    public void loadNewerPage() {
+        DocumentSnapshot newest = olderMessages.isEmpty() ? null : olderMessages.get(olderMessages.size() - 1).document;
+        if (isLoading || isShowingLatest() || newest == null) {
+            return;
+        }
+        isLoading = true;
+        int pageGeneration = generation;
+        query.startAfter(newest).limit(pageSize).get().addOnCompleteListener(task -> {
+            if (pageGeneration != generation) {
+                return;
+            }
+            isLoading = false;
+            if (!task.isSuccessful()) {
+                return;
+            }
+            List<LoadedMessage> page = toLoadedMessages(task.getResult().getDocuments());
+            olderMessages.addAll(page);
+            int removedAtTop = trimOldest();
+            if (page.size() < pageSize) {
+                // The end of the conversation is reached, the newest page is listened again
+                listenNewestPage();
+            }
+            publish(-removedAtTop);
+        });
+    }
+
+    private void listenNewestPage() {
+        newestPageRegistration = query.limitToLast(pageSize).addSnapshotListener((value, error) -> {
+            if (value == null) {
+                return;
+            }
+            List<LoadedMessage> page = toLoadedMessages(value.getDocuments());
+            keepMessagesPushedOut(page);
+            newestPage.clear();
+            newestPage.addAll(page);
+            removeMessagesOfNewestPage();
+            publish(-trimOldest());
+        });
+    }
+
+    // A new message pushes the oldest message of the newest page out of the query, it stays in the window with the older ones
+    private void keepMessagesPushedOut(List<LoadedMessage> page) {
+        if (page.isEmpty()) {
+            return;
+        }
+        Date firstDate = page.get(0).message.getDate();
+        Set<String> pageIds = new HashSet<>();
+        for (LoadedMessage loadedMessage : page) {
+            pageIds.add(loadedMessage.document.getId());
+        }
+        for (LoadedMessage loadedMessage : newestPage) {
+            if (!pageIds.contains(loadedMessage.document.getId()) && !loadedMessage.message.getDate().after(firstDate)) {
+                olderMessages.add(loadedMessage);
+            }
+        }
+    }
+
+    // Older pages read just before the listener started may contain the messages of the newest page
+    private void removeMessagesOfNewestPage() {
+        Set<String> newestIds = new HashSet<>();
+        for (LoadedMessage loadedMessage : newestPage) {
+            newestIds.add(loadedMessage.document.getId());
+        }
+        for (int i = olderMessages.size() - 1; i >= 0 && !newestIds.isEmpty(); i--) {
+            if (newestIds.contains(olderMessages.get(i).document.getId())) {
+                olderMessages.remove(i);
+            }
+        }
+    }
+
+    // After a page of older messages, the newest ones are dropped if the window is too big
+    private void trimNewest() {
+        if (getWindowSize() <= maxWindowSize) {
+            return;
+        }
+        if (isShowingLatest()) {
+            olderMessages.addAll(newestPage);
+            stop();
+        }
+        while (olderMessages.size() > maxWindowSize) {
+            olderMessages.remove(olderMessages.size() - 1);
+        }
+    }
+
+    // After a page of newer messages or a new message, the oldest ones are dropped if the window, newest page included, is too big
+    private int trimOldest() {
+        int removed = 0;
+        while (getWindowSize() > maxWindowSize && !olderMessages.isEmpty()) {
+            olderMessages.remove(0);
+            removed++;
+        }
+        if (removed > 0) {
+            hasOlder = true;
+        }
+        return removed;
+    }
+
+    private DocumentSnapshot getOldest() {
+        if (!olderMessages.isEmpty()) {
+            return olderMessages.get(0).document;
+        }
+        return newestPage.isEmpty() ? null : newestPage.get(0).document;
+    }
+
+    private void publish(int insertedAtTop) {
+        List<Message> messages = new ArrayList<>(getWindowSize());
+        for (LoadedMessage loadedMessage : olderMessages) {
+            messages.add(loadedMessage.message);
+        }
+        for (LoadedMessage loadedMessage : newestPage) {
+            messages.add(loadedMessage.message);
+        }
+        listener.onMessagesChanged(messages, insertedAtTop);
+    }
+
+    // Each document is deserialized once, when its page is received
+    private static List<LoadedMessage> toLoadedMessages(List<DocumentSnapshot> documents) {
+        List<LoadedMessage> loadedMessages = new ArrayList<>(documents.size());
+        for (DocumentSnapshot document : documents) {
+            loadedMessages.add(new LoadedMessage(document, document.toObject(Message.class)));
+        }
+        return loadedMessages;
+    }
+
+    // The document is kept as the cursor of the next pages
+    private static class LoadedMessage {
+
+        private final DocumentSnapshot document;
+        private final Message message;
+
+        LoadedMessage(DocumentSnapshot document, Message message) {
+            this.document = document;
+            this.message = message;
+        }
+    }
+
+
+}
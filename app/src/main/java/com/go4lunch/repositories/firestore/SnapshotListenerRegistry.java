@@ -0,0 +1,110 @@
+package com.go4lunch.repositories.firestore;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One snapshot listener per query, shared by every screen observing it.
+ * The listener is counted by LiveData: it's attached when the first observer becomes active and removed
+ * LINGER_MS after the last one goes away, so a screen rotation or a tab switch doesn't restart the query.
+ * Must be used from the main thread.
+ */
+public class SnapshotListenerRegistry {
+
+    private static final long LINGER_MS = 5000;
+
+    public interface SnapshotReducer<T> {
+        // firstSinceAttach is true for the first snapshot of a new listener, it contains every document as ADDED
+        T reduce(@Nullable T previous, @NonNull QuerySnapshot snapshot, boolean firstSinceAttach);
+    }
+
+    private final Map<String, SharedQueryLiveData<?>> liveDataByKey = new HashMap<>();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private int activeListenerCount;
+
+    // The query and the reducer are only used the first time the key is asked
+    @SuppressWarnings("unchecked")
+    public <T> LiveData<T> get(String key, Query query, SnapshotReducer<T> reducer) {
+        SharedQueryLiveData<T> liveData = (SharedQueryLiveData<T>) liveDataByKey.get(key);
+        if (liveData == null) {
+            liveData = new SharedQueryLiveData<>(query, reducer);
+            liveDataByKey.put(key, liveData);
+        }
+        return liveData;
+    }
+
+    // Forgets the key, its listener is removed now unless a screen still observes it
+    public void release(String key) {
+        SharedQueryLiveData<?> liveData = liveDataByKey.remove(key);
+        if (liveData != null) {
+            handler.removeCallbacks(liveData.detachRunnable);
+            liveData.detach();
+        }
+    }
+
+    public int getActiveListenerCount() {
+        return activeListenerCount;
+    }
+
+    public boolean isListening(String key) {
+        SharedQueryLiveData<?> liveData = liveDataByKey.get(key);
+        return liveData != null && liveData.registration != null;
+    }
+
+    private class SharedQueryLiveData<T> extends LiveData<T> {
+
+        private final Query query;
+        private final SnapshotReducer<T> reducer;
+        private final Runnable detachRunnable = this::detach;
+        private ListenerRegistration registration;
+        private boolean firstSinceAttach;
+
+        SharedQueryLiveData(Query query, SnapshotReducer<T> reducer) {
+            this.query = query;
+            this.reducer = reducer;
+        }
+
+        @Override
+        protected void onActive() {
+            handler.removeCallbacks(detachRunnable);
+            if (registration == null) {
+                firstSinceAttach = true;
+                registration = query.addSnapshotListener((value, error) -> {
+                    if (value == null) {
+                        return;
+                    }
+                    T reduced = reducer.reduce(getValue(), value, firstSinceAttach);
+                    firstSinceAttach = false;
+                    setValue(reduced);
+                });
+                activeListenerCount++;
+            }
+        }
+
+        @Override
+        protected void onInactive() {
+            handler.postDelayed(detachRunnable, LINGER_MS);
+        }
+
+        private void detach() {
+            if (registration != null && !hasActiveObservers()) {
+                registration.remove();
+                registration = null;
+                activeListenerCount--;
+            }
+        }
+    }
+
+
+}
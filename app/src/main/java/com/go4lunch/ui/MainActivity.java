@@ -19,7 +19,6 @@ import androidx.navigation.ui.NavigationUI;
 import com.bumptech.glide.Glide;
 import com.go4lunch.R;
 import com.go4lunch.databinding.ActivityMainBinding;
-import com.go4lunch.model.firestore.User;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 
@@ -55,18 +54,13 @@ public class MainActivity extends AppCompatActivity {
          */
         mainActivityViewModel = new ViewModelProvider(this).get(MainActivityViewModel.class);
         if (mainActivityViewModel.isCurrentUserLogged()) {
-            mainActivityViewModel.getUserData().addOnSuccessListener(user -> {
-                // Set the data with the user information
-                FirebaseUser firebaseUser = mainActivityViewModel.getCurrentUser();
-                String userEmail = TextUtils.isEmpty(firebaseUser.getEmail()) ? getString(R.string.no_email_found) : firebaseUser.getEmail(); // Ternary condition
-                TextView userEmailTextView = binding.navView.getHeaderView(0).findViewById(R.id.user_email_field);
-                userEmailTextView.setText(userEmail);
-            });
-            mainActivityViewModel.getUserDataForUpdate().addSnapshotListener((value, error) -> {
-                //Verify if value return information about the current user
-                if (value == null)
-                    return;
-                User user = value.toObject(User.class);
+            // Set the data with the user information
+            FirebaseUser firebaseUser = mainActivityViewModel.getCurrentUser();
+            String userEmail = TextUtils.isEmpty(firebaseUser.getEmail()) ? getString(R.string.no_email_found) : firebaseUser.getEmail(); // Ternary condition
+            TextView userEmailTextView = binding.navView.getHeaderView(0).findViewById(R.id.user_email_field);
+            userEmailTextView.setText(userEmail);
+            // The listener of the user document is the one of the current user cache
+            mainActivityViewModel.getCurrentUserLiveData().observe(this, user -> {
                 if (user != null) {
                     String username = TextUtils.isEmpty(user.getUsername()) ? getString(R.string.no_username_found) : user.getUsername(); //  Ternary condition
                     TextView usernameTextView = binding.navView.getHeaderView(0).findViewById(R.id.username_field);
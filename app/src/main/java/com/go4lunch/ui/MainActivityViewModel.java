@@ -1,12 +1,11 @@
 package com.go4lunch.ui;
 
+import androidx.lifecycle.LiveData;
 import androidx.lifecycle.ViewModel;
 
 import com.go4lunch.di.DI;
 import com.go4lunch.model.firestore.User;
-import com.google.android.gms.tasks.Task;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.DocumentReference;
 
 public class MainActivityViewModel extends ViewModel {
 
@@ -18,13 +17,9 @@ public class MainActivityViewModel extends ViewModel {
         return (this.getCurrentUser() != null);
     }
 
-    // Get the user from Firestore and cast it to a User model Object
-    public Task<User> getUserData() {
-        return DI.getFirestoreRepository().getUserData().continueWith(task -> task.getResult().toObject(User.class));
-    }
-
-    public DocumentReference getUserDataForUpdate() {
-        return DI.getFirestoreRepository().getUserDataForUpdate();
+    // The current user, updated by the listener of his document
+    public LiveData<User> getCurrentUserLiveData() {
+        return DI.getFirestoreRepository().getCurrentUserLiveData();
     }
 
 
@@ -5,25 +5,30 @@ import android.os.Bundle;
 import android.view.View;
 import android.widget.TextView;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.ActionBar;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.go4lunch.R;
 import com.go4lunch.databinding.ActivityChatBinding;
 import com.go4lunch.model.firestore.Message;
+import com.go4lunch.repositories.firestore.PagedChatSource;
 
 import java.text.MessageFormat;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 
-public class ChatActivity extends AppCompatActivity implements ChatAdapter.OnDataChange {
+public class ChatActivity extends AppCompatActivity implements PagedChatSource.Listener {
 
     private ActivityChatBinding binding;
     private ChatActivityViewModel chatActivityViewModel;
     private ChatAdapter mAdapter;
+    private PagedChatSource chatSource;
     private String currentUserId;
     private String currentUserPicUrl;
     private String userId;
@@ -47,6 +52,7 @@ public class ChatActivity extends AppCompatActivity implements ChatAdapter.OnDat
 
         configureRecyclerView();
         configureToolbar();
+        chatActivityViewModel.migrateLegacyMessages(currentUserId, userId);
 
         binding.sendBtn.setOnClickListener(v -> {
             if (!binding.editTextMessage.getText().toString().isEmpty()) {
@@ -55,6 +61,10 @@ public class ChatActivity extends AppCompatActivity implements ChatAdapter.OnDat
                         date, Arrays.asList(currentUserId, userId));
                 ChatActivityViewModel.newMessage(message);
                 binding.editTextMessage.setText("");
+                // Back to the newest messages if older pages were displayed
+                if (!chatSource.isShowingLatest()) {
+                    chatSource.start();
+                }
             }
         });
 
@@ -75,27 +85,44 @@ public class ChatActivity extends AppCompatActivity implements ChatAdapter.OnDat
      **/
     private void configureRecyclerView() {
         binding.messageRecyclerView.setHasFixedSize(true);
-        binding.messageRecyclerView.setLayoutManager(new LinearLayoutManager(this));
-        mAdapter = new ChatAdapter(chatActivityViewModel.getPrivateChatMessage(currentUserId, userId), currentUserId, this);
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        binding.messageRecyclerView.setLayoutManager(layoutManager);
+        mAdapter = new ChatAdapter(currentUserId);
         binding.messageRecyclerView.setAdapter(mAdapter);
+        chatSource = chatActivityViewModel.getPrivateChatMessage(currentUserId, userId, this);
+        // Older or newer pages are asked when the list reaches one of its ends
+        binding.messageRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy < 0 && !recyclerView.canScrollVertically(-1)) {
+                    chatSource.loadOlderPage();
+                } else if (dy > 0 && !recyclerView.canScrollVertically(1)) {
+                    chatSource.loadNewerPage();
+                }
+            }
+        });
     }
 
     @Override
     public void onStart() {
         super.onStart();
-        mAdapter.startListening();
-        binding.messageRecyclerView.scrollToPosition(mAdapter.getItemCount() - 1);
+        chatSource.start();
     }
 
     @Override
     public void onStop() {
         super.onStop();
-        mAdapter.stopListening();
+        chatSource.stop();
     }
 
     @Override
-    public void onDataChanged() {
-        binding.messageRecyclerView.scrollToPosition(mAdapter.getItemCount() - 1);
+    public void onMessagesChanged(@NonNull List<Message> messages, int insertedAtTop) {
+        // The diff keeps the messages on screen at their place when older ones are added or dropped above them
+        mAdapter.submitList(messages, () -> {
+            if (insertedAtTop == 0 && chatSource.isShowingLatest()) {
+                binding.messageRecyclerView.scrollToPosition(mAdapter.getItemCount() - 1);
+            }
+        });
     }
 
 
@@ -1,17 +1,25 @@
 package com.go4lunch.ui.home.chat;
 
+import android.util.Log;
+
 import androidx.lifecycle.ViewModel;
 
-import com.firebase.ui.firestore.FirestoreRecyclerOptions;
 import com.go4lunch.di.DI;
 import com.go4lunch.model.firestore.Message;
 import com.go4lunch.model.firestore.User;
+import com.go4lunch.repositories.firestore.PagedChatSource;
 import com.google.android.gms.tasks.Task;
 
 public class ChatActivityViewModel extends ViewModel {
 
-    public FirestoreRecyclerOptions<Message> getPrivateChatMessage(String from, String to) {
-        return DI.getChatRepository().getPrivateChatRoomMessage(from, to);
+    public PagedChatSource getPrivateChatMessage(String from, String to, PagedChatSource.Listener listener) {
+        return DI.getChatRepository().getPrivateChatRoomMessage(from, to, listener);
+    }
+
+    // Messages sent before the conversations were stored by pair of users, moved when the conversation is opened
+    public void migrateLegacyMessages(String from, String to) {
+        DI.getChatRepository().migrateLegacyMessages(from, to)
+                .addOnFailureListener(e -> Log.w("[THIERRY]", "Legacy messages not migrated, tried again at the next opening : " + e.getMessage()));
     }
 
     //GET
@@ -19,9 +27,9 @@ public class ChatActivityViewModel extends ViewModel {
         return DI.getChatRepository().getCurrentUserId();
     }
 
-    // Get the user from Firestore and cast it to a User model Object
+    // Get the current user, from the cache once it has been read
     public Task<User> getUserData() {
-        return DI.getFirestoreRepository().getUserData().continueWith(task -> task.getResult().toObject(User.class));
+        return DI.getFirestoreRepository().getCurrentUserData();
     }
 
     //INSERT
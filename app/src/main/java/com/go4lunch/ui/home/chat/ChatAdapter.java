@@ -6,38 +6,49 @@ import android.widget.LinearLayout;
 import android.widget.RelativeLayout;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.request.RequestOptions;
-import com.firebase.ui.firestore.FirestoreRecyclerAdapter;
-import com.firebase.ui.firestore.FirestoreRecyclerOptions;
 import com.go4lunch.R;
 import com.go4lunch.databinding.MessageItemBinding;
 import com.go4lunch.model.firestore.Message;
 
 import java.text.DateFormat;
 
-public class ChatAdapter extends FirestoreRecyclerAdapter<Message, ChatAdapter.ChatHolder> {
+/**
+ * Window of messages of the PagedChatSource, keyed by the id of their document.
+ * Each new window is diffed off the main thread, so a new message or a page of older ones only binds the rows added.
+ */
+public class ChatAdapter extends ListAdapter<Message, ChatAdapter.ChatHolder> {
 
-    public interface OnDataChange {
-        void onDataChanged();
-    }
+    private static final DiffUtil.ItemCallback<Message> DIFF_CALLBACK = new DiffUtil.ItemCallback<Message>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Message oldItem, @NonNull Message newItem) {
+            return oldItem.getId() != null && oldItem.getId().equals(newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Message oldItem, @NonNull Message newItem) {
+            return oldItem.equals(newItem);
+        }
+    };
 
     private LinearLayout profileContainer;
     private RelativeLayout rootView;
     private RelativeLayout messageContainer;
     private final String currentUserId;
-    private final OnDataChange onDataChange;
 
-    public ChatAdapter(@NonNull FirestoreRecyclerOptions<Message> options, String currentUserId, OnDataChange onDataChange) {
-        super(options);
+    public ChatAdapter(String currentUserId) {
+        super(DIFF_CALLBACK);
         this.currentUserId = currentUserId;
-        this.onDataChange = onDataChange;
     }
 
     @Override
-    protected void onBindViewHolder(@NonNull ChatHolder holder, int position, @NonNull Message model) {
+    public void onBindViewHolder(@NonNull ChatHolder holder, int position) {
+        Message model = getItem(position);
         messageContainer = holder.binding.activityChatItemMessageContainer;
         rootView = holder.binding.activityMentorChatItemRootView;
         profileContainer = holder.binding.activityChatItemProfileContainer;
@@ -68,12 +79,6 @@ public class ChatAdapter extends FirestoreRecyclerAdapter<Message, ChatAdapter.C
         this.rootView.requestLayout();
     }
 
-    @Override
-    public void onDataChanged() {
-        super.onDataChanged();
-        onDataChange.onDataChanged();
-    }
-
     @NonNull
     @Override
     public ChatHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
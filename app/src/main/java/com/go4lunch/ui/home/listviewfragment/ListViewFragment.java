@@ -2,7 +2,6 @@ package com.go4lunch.ui.home.listviewfragment;
 
 import static com.go4lunch.ui.home.mapviewfragment.MapViewFragment.myPosition;
 
-import android.annotation.SuppressLint;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.Menu;
@@ -21,25 +20,15 @@ import androidx.lifecycle.ViewModelStoreOwner;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.go4lunch.R;
-import com.go4lunch.model.details.DetailSearch;
-import com.go4lunch.model.firestore.User;
-import com.go4lunch.model.nearbysearch.ResultsItem;
+import com.go4lunch.model.details.DetailProjection;
 import com.go4lunch.ui.home.mapviewfragment.MapViewFragment;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class ListViewFragment extends Fragment {
 
     public ListViewViewModel listViewViewModel;
     private RecyclerView mRecyclerView;
     ListViewFragmentAdapter mAdapter;
-    ListViewFragmentAdapterVac mAdapterVac;
-    private final List<ResultsItem> listOfRestaurant = new ArrayList<>();
-    private final List<DetailSearch> listOfRestaurantVac = new ArrayList<>();
-    public List<User> listOfUserWhoChose = new ArrayList<>();
 
-    @SuppressLint("NotifyDataSetChanged")
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
         View root = inflater.inflate(R.layout.fragment_list_view, container, false);
@@ -48,19 +37,11 @@ public class ListViewFragment extends Fragment {
         setHasOptionsMenu(true);
         ((AppCompatActivity) getActivity()).getSupportActionBar().setTitle(getString(R.string.i_m_hungry));
 
-        mAdapter = new ListViewFragmentAdapter(listOfRestaurant, listOfUserWhoChose);
-        mAdapterVac = new ListViewFragmentAdapterVac(listOfRestaurantVac, listOfUserWhoChose);
+        // Rows of the search are displayed from the predictions, only the bound ones ask for their detail
+        mAdapter = new ListViewFragmentAdapter(placeId -> listViewViewModel.hydrateAutocompleteResult(placeId, DetailProjection.ROW));
         mRecyclerView.setAdapter(mAdapter);
-        listViewViewModel.getNearbySearchResultFromVM().observe(getViewLifecycleOwner(), nearbySearch -> {
-            listOfRestaurant.clear();
-            listOfRestaurant.addAll(nearbySearch.getResults());
-            mAdapter.notifyDataSetChanged();
-            listViewViewModel.getListOfUsersWhoChoseRestaurant().observe(getViewLifecycleOwner(), users -> {
-                listOfUserWhoChose.clear();
-                listOfUserWhoChose.addAll(users);
-                mAdapter.notifyDataSetChanged();
-            });
-        });
+        // Built off the main thread from the nearby restaurants or the search, and the diners
+        listViewViewModel.getRestaurantRows().observe(getViewLifecycleOwner(), mAdapter::submitList);
 
         return root;
     }
@@ -76,13 +57,21 @@ public class ListViewFragment extends Fragment {
             public boolean onQueryTextSubmit(String query) {
                 if (myPosition != null) {
                     listViewViewModel.callAutocompleteSearch(MapViewFragment.myPosition.latitude + "," + myPosition.longitude, query);
-                    setupObserver();
+                    displaySearchResults();
                 }
                 return false;
             }
 
             @Override
             public boolean onQueryTextChange(String newText) {
+                if (myPosition != null) {
+                    listViewViewModel.searchAutocomplete(myPosition.latitude + "," + myPosition.longitude, newText);
+                    if (newText.trim().isEmpty()) {
+                        displayNearbyRestaurants();
+                    } else {
+                        displaySearchResults();
+                    }
+                }
                 return false;
             }
         });
@@ -95,19 +84,28 @@ public class ListViewFragment extends Fragment {
 
             @Override
             public void onViewDetachedFromWindow(View v) {
-                mRecyclerView.setAdapter(mAdapter);
+                if (myPosition != null) {
+                    listViewViewModel.searchAutocomplete(myPosition.latitude + "," + myPosition.longitude, "");
+                }
+                displayNearbyRestaurants();
             }
         });
 
         super.onCreateOptionsMenu(menu, menuInflater);
     }
 
-    private void setupObserver() {
-        listViewViewModel.getAutocompleteSearchResultFromVM().observe(getViewLifecycleOwner(), detailSearches -> {
-            listOfRestaurantVac.clear();
-            listOfRestaurantVac.addAll(detailSearches);
-            mRecyclerView.setAdapter(mAdapterVac);
-        });
+    private void displaySearchResults() {
+        if (listViewViewModel.isSearching()) {
+            return;
+        }
+        // Nearby pages would not be displayed during the search
+        listViewViewModel.stopNearbyPagination();
+        listViewViewModel.setSearching(true);
+    }
+
+    // Back to the nearby restaurants when the search is closed or emptied
+    private void displayNearbyRestaurants() {
+        listViewViewModel.setSearching(false);
     }
 
 
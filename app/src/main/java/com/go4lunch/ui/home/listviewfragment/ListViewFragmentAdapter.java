@@ -1,8 +1,6 @@
 package com.go4lunch.ui.home.listviewfragment;
 
-import android.annotation.SuppressLint;
 import android.content.Intent;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -11,142 +9,123 @@ import android.widget.RatingBar;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
-import androidx.annotation.VisibleForTesting;
 import androidx.core.app.ActivityCompat;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
-import com.go4lunch.BuildConfig;
 import com.go4lunch.R;
-import com.go4lunch.model.firestore.User;
-import com.go4lunch.model.nearbysearch.ResultsItem;
-import com.go4lunch.ui.home.mapviewfragment.MapViewFragment;
 import com.go4lunch.ui.home.restaurantdetailactivity.RestaurantDetailActivity;
-import com.google.android.gms.maps.model.LatLng;
-import com.google.maps.android.SphericalUtil;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.text.MessageFormat;
 import java.util.List;
 
-public class ListViewFragmentAdapter extends RecyclerView.Adapter<ListViewFragmentAdapter.ViewHolder> {
+/**
+ * Rows of the list, the nearby restaurants or the results of the search, keyed by placeId.
+ * The rows are built before being submitted, so binding only assigns their fields. A new list is diffed off the main thread,
+ * a change of the number of coworkers or of the distance only rebinds those texts and going from the search to the nearby
+ * restaurants is a diff too.
+ */
+public class ListViewFragmentAdapter extends ListAdapter<RestaurantRow, ListViewFragmentAdapter.ViewHolder> {
 
-    View itemView;
-    private final List<ResultsItem> listOfRestaurants;
-    private final List<User> listOfUserWhoChoseWhereLunch;
+    public interface OnDetailNeededListener {
+        void onDetailNeeded(String placeId);
+    }
+
+    private static final Object PAYLOAD_COWORKERS_AND_DISTANCE = new Object();
+
+    private static final DiffUtil.ItemCallback<RestaurantRow> DIFF_CALLBACK = new DiffUtil.ItemCallback<RestaurantRow>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull RestaurantRow oldItem, @NonNull RestaurantRow newItem) {
+            return oldItem.getPlaceId().equals(newItem.getPlaceId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull RestaurantRow oldItem, @NonNull RestaurantRow newItem) {
+            return oldItem.equals(newItem);
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull RestaurantRow oldItem, @NonNull RestaurantRow newItem) {
+            return oldItem.hasSameDetail(newItem) ? PAYLOAD_COWORKERS_AND_DISTANCE : null;
+        }
+    };
 
-    public ListViewFragmentAdapter(List<ResultsItem> listOfRestaurants, List<User> listOfUserWhoChoseWhereLunch) {
-        this.listOfRestaurants = listOfRestaurants;
-        this.listOfUserWhoChoseWhereLunch = listOfUserWhoChoseWhereLunch;
+    private final OnDetailNeededListener onDetailNeededListener;
+
+    public ListViewFragmentAdapter(OnDetailNeededListener onDetailNeededListener) {
+        super(DIFF_CALLBACK);
+        this.onDetailNeededListener = onDetailNeededListener;
     }
 
     @NonNull
     @NotNull
     @Override
     public ListViewFragmentAdapter.ViewHolder onCreateViewHolder(@NonNull @NotNull ViewGroup parent, int viewType) {
-        itemView = LayoutInflater.from(parent.getContext()).inflate(R.layout.fragment_list_view_item, parent, false);
-        return new ViewHolder(itemView);
-    }
-
-    @SuppressLint("SetTextI18n")
-    @Override
-    public void onBindViewHolder(@NonNull @NotNull ListViewFragmentAdapter.ViewHolder holder, @SuppressLint("RecyclerView") int position) {
-
+        View itemView = LayoutInflater.from(parent.getContext()).inflate(R.layout.fragment_list_view_item, parent, false);
+        ViewHolder holder = new ViewHolder(itemView);
         itemView.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position == RecyclerView.NO_POSITION) {
+                return;
+            }
+            RestaurantRow row = getItem(position);
             Intent intent = new Intent(v.getContext(), RestaurantDetailActivity.class);
-            intent.putExtra("placeId", listOfRestaurants.get(holder.getBindingAdapterPosition()).getPlaceId());
-            intent.putExtra("name", listOfRestaurants.get(holder.getBindingAdapterPosition()).getName());
-            intent.putExtra("address", listOfRestaurants.get(holder.getBindingAdapterPosition()).getVicinity());
+            intent.putExtra("placeId", row.getPlaceId());
+            intent.putExtra("name", row.getName());
+            intent.putExtra("address", row.getAddress());
             ActivityCompat.startActivity(v.getContext(), intent, null);
         });
-
-        holder.nameOfRestaurant.setText(listOfRestaurants.get(position).getName());
-
-        holder.restaurantAddress.setText(listOfRestaurants.get(position).getVicinity());
-
-        holder.ratingBar.setRating(getRatingOnThree(listOfRestaurants.get(position).getRating()));
-
-        holder.openingHour.setText(getOpeningHoursText(listOfRestaurants.get(position)));
-
-        try {
-            if (listOfRestaurants.get(position).getPhotos() != null) {
-                String query = getPhotoRequest(listOfRestaurants.get(position).getPhotos().get(0).getPhotoReference());
-                Glide.with(holder.restaurantPic)
-                        .load(query)
-                        .centerCrop()
-                        .into(holder.restaurantPic);
-            } else {
-                holder.restaurantPic.setImageResource(R.drawable.ic_baseline_no_photography_24);
-            }
-        } catch (Exception e) {
-            Log.i("[THIERRY]", "Exception : " + e.getMessage());
-        }
-
-        LatLng startLatLng = new LatLng(listOfRestaurants.get(position).getGeometry().getLocation().getLat(), listOfRestaurants.get(position).getGeometry().getLocation().getLng());
-        LatLng endLatLng = new LatLng(MapViewFragment.myPosition.latitude, MapViewFragment.myPosition.longitude);
-        int distance = (int) SphericalUtil.computeDistanceBetween(startLatLng, endLatLng);
-        String theDistance = String.valueOf(distance);
-        String m = "m";
-        holder.restaurantDistance.setText(theDistance + m);
-
-        if (listOfUserWhoChoseWhereLunch != null) {
-            int n = getNumberOfReservations(listOfRestaurants.get(holder.getBindingAdapterPosition()).getPlaceId(), listOfUserWhoChoseWhereLunch);
-            if (n > 0) {
-                String start = "(";
-                String end = ")";
-                holder.numberOfCoworker.setText(MessageFormat.format("{0}{1}{2}", start, n, end));
-                holder.coworkerIcon.setVisibility(View.VISIBLE);
-            } else {
-                holder.numberOfCoworker.setText("");
-                holder.coworkerIcon.setVisibility(View.INVISIBLE);
-            }
-        }
-
-    }
-
-    @VisibleForTesting
-    public float getRatingOnThree(double rating) {
-        return (float) (rating / 1.66);
+        return holder;
     }
 
-    @VisibleForTesting
-    public int getOpeningHoursText(ResultsItem restaurant) {
-        if (restaurant.getOpeningHours() != null) {
-            if (restaurant.getOpeningHours().isOpenNow()) {
-                return R.string.Open_now;
-            } else {
-                return R.string.Close_now;
-            }
+    @Override
+    public void onBindViewHolder(@NonNull @NotNull ListViewFragmentAdapter.ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
         } else {
-            return R.string.we_dont_know;
+            RestaurantRow row = getItem(position);
+            holder.restaurantDistance.setText(row.getDistance());
+            bindCoworkers(holder, row);
         }
     }
 
-    @VisibleForTesting
-    public String getPhotoRequest(String photoReference) {
-        String base = "https://maps.googleapis.com/maps/api/place/photo?";
-        String key = "key=" + BuildConfig.MAPS_API_KEY;
-        String reference = "&photoreference=" + photoReference;
-        String maxH = "&maxheight=157";
-        String maxW = "&maxwidth=157";
-        return base + key + reference + maxH + maxW;
-    }
-
-    @VisibleForTesting
-    public int getNumberOfReservations(String placeId, List<User> listOfUserWhoChose) {
-        int n = 0;
-        for (int i = 0; i < listOfUserWhoChose.size(); i++) {
-            if (listOfUserWhoChose.get(i).getEatingPlaceId().equals(placeId)) {
-                n = n + 1;
-            }
+    @Override
+    public void onBindViewHolder(@NonNull @NotNull ListViewFragmentAdapter.ViewHolder holder, int position) {
+        RestaurantRow row = getItem(position);
+
+        holder.nameOfRestaurant.setText(row.getName());
+        holder.restaurantAddress.setText(row.getAddress());
+        holder.ratingBar.setRating(row.getRatingOnThree());
+        if (row.getOpeningHoursText() != 0) {
+            holder.openingHour.setText(row.getOpeningHoursText());
+        } else {
+            holder.openingHour.setText("");
         }
-        return n;
+        holder.restaurantDistance.setText(row.getDistance());
+
+        if (row.getPhotoUrl() != null) {
+            Glide.with(holder.restaurantPic)
+                    .load(row.getPhotoUrl())
+                    .centerCrop()
+                    .into(holder.restaurantPic);
+        } else if (row.hasDetail()) {
+            Glide.with(holder.restaurantPic).clear(holder.restaurantPic);
+            holder.restaurantPic.setImageResource(R.drawable.ic_baseline_no_photography_24);
+        } else {
+            // Not hydrated yet (or only with the fields of a pin), the row is completed when its detail arrives
+            Glide.with(holder.restaurantPic).clear(holder.restaurantPic);
+            onDetailNeededListener.onDetailNeeded(row.getPlaceId());
+        }
+
+        bindCoworkers(holder, row);
     }
 
-    @Override
-    public int getItemCount() {
-        return listOfRestaurants.size();
+    private void bindCoworkers(@NonNull ViewHolder holder, RestaurantRow row) {
+        holder.numberOfCoworker.setText(row.getCoworkers());
+        holder.coworkerIcon.setVisibility(row.getNumberOfCoworkers() > 0 ? View.VISIBLE : View.INVISIBLE);
     }
 
     public static class ViewHolder extends RecyclerView.ViewHolder {
@@ -1,32 +1,159 @@
 package com.go4lunch.ui.home.listviewfragment;
 
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.ViewModel;
 
 import com.go4lunch.di.DI;
+import com.go4lunch.model.autocomplete.PredictionsResultItem;
+import com.go4lunch.model.details.DetailProjection;
 import com.go4lunch.model.details.DetailSearch;
-import com.go4lunch.model.firestore.User;
+import com.go4lunch.model.firestore.DinersIndex;
 import com.go4lunch.model.nearbysearch.NearbySearch;
+import com.go4lunch.model.nearbysearch.ResultsItem;
+import com.google.android.gms.maps.model.LatLng;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class ListViewViewModel extends ViewModel {
 
+    // Rows are built one list after the other, the last one posted is the one displayed
+    private final ExecutorService rowsExecutor = Executors.newSingleThreadExecutor();
+    private final MediatorLiveData<List<RestaurantRow>> restaurantRows = new MediatorLiveData<>();
+    private boolean isSearching;
+    // The nearby restaurants keep the order of the nearby search unless asked
+    private boolean sortByDistance;
+
+    public ListViewViewModel() {
+        restaurantRows.addSource(getNearbySearchResultFromVM(), nearbySearch -> {
+            if (!isSearching) {
+                buildRestaurantRows();
+            }
+        });
+        restaurantRows.addSource(getDinersIndex(), dinersIndex -> buildRestaurantRows());
+        // The location request already waits for a move of SMALLEST_DISPLACEMENT_THRESHOLD_METER, each new position changes the distances
+        restaurantRows.addSource(getMyPosition(), myPosition -> buildRestaurantRows());
+        restaurantRows.addSource(getAutocompletePredictionsFromVM(), predictions -> {
+            if (isSearching) {
+                buildRestaurantRows();
+            }
+        });
+        restaurantRows.addSource(getAutocompleteSearchResultFromVM(), detailSearches -> {
+            if (isSearching) {
+                buildRestaurantRows();
+            }
+        });
+    }
+
+    // Rows of the search while it's open, of the nearby restaurants otherwise
+    public LiveData<List<RestaurantRow>> getRestaurantRows() {
+        return restaurantRows;
+    }
+
+    public boolean isSearching() {
+        return isSearching;
+    }
+
+    public void setSearching(boolean isSearching) {
+        if (this.isSearching != isSearching) {
+            this.isSearching = isSearching;
+            buildRestaurantRows();
+        }
+    }
+
+    public void setSortByDistance(boolean sortByDistance) {
+        if (this.sortByDistance != sortByDistance) {
+            this.sortByDistance = sortByDistance;
+            buildRestaurantRows();
+        }
+    }
+
+    // The sources are copied on the main thread, the rows are computed on the executor
+    private void buildRestaurantRows() {
+        LatLng myPosition = getMyPosition().getValue();
+        DinersIndex dinersIndex = getDinersIndex().getValue();
+        if (isSearching) {
+            List<PredictionsResultItem> predictions = getAutocompletePredictionsFromVM().getValue() != null
+                    ? new ArrayList<>(getAutocompletePredictionsFromVM().getValue()) : Collections.emptyList();
+            Map<String, DetailSearch> detailsByPlaceId = new HashMap<>();
+            if (getAutocompleteSearchResultFromVM().getValue() != null) {
+                for (DetailSearch detailSearch : getAutocompleteSearchResultFromVM().getValue()) {
+                    detailsByPlaceId.put(detailSearch.getResult().getPlaceId(), detailSearch);
+                }
+            }
+            rowsExecutor.execute(() -> {
+                List<RestaurantRow> rows = new ArrayList<>(predictions.size());
+                for (PredictionsResultItem prediction : predictions) {
+                    rows.add(RestaurantRow.from(prediction, detailsByPlaceId.get(prediction.getPlaceId()), myPosition, dinersIndex));
+                }
+                restaurantRows.postValue(rows);
+            });
+        } else {
+            NearbySearch nearbySearch = getNearbySearchResultFromVM().getValue();
+            List<ResultsItem> results = nearbySearch != null && nearbySearch.getResults() != null
+                    ? new ArrayList<>(nearbySearch.getResults()) : Collections.emptyList();
+            boolean sortRows = sortByDistance;
+            rowsExecutor.execute(() -> {
+                List<RestaurantRow> rows = new ArrayList<>(results.size());
+                for (ResultsItem result : results) {
+                    rows.add(RestaurantRow.from(result, myPosition, dinersIndex));
+                }
+                // The search always keeps the ranking of the predictions
+                if (sortRows) {
+                    Collections.sort(rows, RestaurantRow.BY_DISTANCE);
+                }
+                restaurantRows.postValue(rows);
+            });
+        }
+    }
+
     public LiveData<NearbySearch> getNearbySearchResultFromVM() {
         return DI.getGooglePlaceRepository().getNearbySearchResult();
     }
 
-    public LiveData<List<User>> getListOfUsersWhoChoseRestaurant() {
-        return DI.getFirestoreRepository().getListOfUsersWhoChoseRestaurant();
+    public LiveData<LatLng> getMyPosition() {
+        return DI.getLocationRepository().getMyPosition();
+    }
+
+    public LiveData<DinersIndex> getDinersIndex() {
+        return DI.getFirestoreRepository().getDinersIndex();
     }
 
     public void callAutocompleteSearch(String position, String input) {
         DI.getGooglePlaceRepository().callAutocompleteResult(position, input);
     }
 
+    public void stopNearbyPagination() {
+        DI.getGooglePlaceRepository().stopNearbyPagination();
+    }
+
+    public void searchAutocomplete(String position, String input) {
+        DI.getGooglePlaceRepository().searchAutocomplete(position, input);
+    }
+
+    public LiveData<List<PredictionsResultItem>> getAutocompletePredictionsFromVM() {
+        return DI.getGooglePlaceRepository().getAutocompletePredictions();
+    }
+
     public LiveData<List<DetailSearch>> getAutocompleteSearchResultFromVM() {
         return DI.getGooglePlaceRepository().getAutocompleteSearchResult();
     }
 
+    public void hydrateAutocompleteResult(String placeId, DetailProjection projection) {
+        DI.getGooglePlaceRepository().hydrateAutocompleteResult(placeId, projection);
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        rowsExecutor.shutdown();
+    }
+
 
 }
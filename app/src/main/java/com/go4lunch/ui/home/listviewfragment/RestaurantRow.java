@@ -0,0 +1,242 @@
+package com.go4lunch.ui.home.listviewfragment;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.StringRes;
+import androidx.annotation.VisibleForTesting;
+
+import com.go4lunch.BuildConfig;
+import com.go4lunch.R;
+import com.go4lunch.model.autocomplete.PredictionsResultItem;
+import com.go4lunch.model.details.DetailProjection;
+import com.go4lunch.model.details.DetailSearch;
+import com.go4lunch.model.details.RestaurantDetailResult;
+import com.go4lunch.model.firestore.DinersIndex;
+import com.go4lunch.model.nearbysearch.ResultsItem;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.maps.android.SphericalUtil;
+
+import java.text.MessageFormat;
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * What a row of the list displays, from a nearby result or from an autocomplete prediction and its detail.
+ * Everything is computed when the row is built, off the main thread, so the adapter only assigns the fields to the views.
+ */
+public final class RestaurantRow {
+
+    public static final int UNKNOWN_DISTANCE = -1;
+
+    // Nearest first, the rows without distance at the end
+    public static final Comparator<RestaurantRow> BY_DISTANCE = (row1, row2) -> {
+        if (row1.distanceInMeters == row2.distanceInMeters) {
+            return 0;
+        }
+        if (row1.distanceInMeters == UNKNOWN_DISTANCE) {
+            return 1;
+        }
+        if (row2.distanceInMeters == UNKNOWN_DISTANCE) {
+            return -1;
+        }
+        return row1.distanceInMeters < row2.distanceInMeters ? -1 : 1;
+    };
+
+    private final String placeId;
+    private final String name;
+    private final String address;
+    // False while the detail of a prediction is not there, the rating, opening hours, photo and distance are then empty
+    private final boolean hasDetail;
+    private final float ratingOnThree;
+    @StringRes
+    private final int openingHoursText;
+    @Nullable
+    private final String photoUrl;
+    private final int distanceInMeters;
+    private final String distance;
+    private final int numberOfCoworkers;
+    private final String coworkers;
+
+    private RestaurantRow(String placeId, String name, String address, boolean hasDetail, float ratingOnThree, @StringRes int openingHoursText,
+                          @Nullable String photoUrl, int distanceInMeters, int numberOfCoworkers) {
+        this.placeId = placeId;
+        this.name = name;
+        this.address = address;
+        this.hasDetail = hasDetail;
+        this.ratingOnThree = ratingOnThree;
+        this.openingHoursText = openingHoursText;
+        this.photoUrl = photoUrl;
+        this.distanceInMeters = distanceInMeters;
+        this.distance = distanceInMeters == UNKNOWN_DISTANCE ? "" : MessageFormat.format("{0}{1}", String.valueOf(distanceInMeters), "m");
+        this.numberOfCoworkers = numberOfCoworkers;
+        this.coworkers = numberOfCoworkers > 0 ? MessageFormat.format("{0}{1}{2}", "(", numberOfCoworkers, ")") : "";
+    }
+
+    public static RestaurantRow from(@NonNull ResultsItem restaurant, @Nullable LatLng myPosition, @Nullable DinersIndex dinersIndex) {
+        String photoUrl = null;
+        if (restaurant.getPhotos() != null && !restaurant.getPhotos().isEmpty()) {
+            photoUrl = getPhotoRequest(restaurant.getPhotos().get(0).getPhotoReference());
+        }
+        return new RestaurantRow(restaurant.getPlaceId(), restaurant.getName(), restaurant.getVicinity(), true,
+                getRatingOnThree(restaurant.getRating()), getOpeningHoursText(restaurant), photoUrl,
+                getDistanceInMeters(restaurant.getGeometry().getLocation().getLat(), restaurant.getGeometry().getLocation().getLng(), myPosition),
+                getNumberOfReservations(restaurant.getPlaceId(), dinersIndex));
+    }
+
+    // The detail is used once it has the fields of a row, the prediction alone gives the name and the address
+    public static RestaurantRow from(@NonNull PredictionsResultItem prediction, @Nullable DetailSearch detailSearch,
+                                     @Nullable LatLng myPosition, @Nullable DinersIndex dinersIndex) {
+        String placeId = prediction.getPlaceId();
+        String name = getMainText(prediction);
+        String address = prediction.getStructuredFormatting() != null ? prediction.getStructuredFormatting().getSecondaryText() : "";
+        int numberOfCoworkers = getNumberOfReservations(placeId, dinersIndex);
+        if (detailSearch == null || detailSearch.getResult() == null || !detailSearch.getProjection().covers(DetailProjection.ROW)) {
+            return new RestaurantRow(placeId, name, address, false, 0, 0, null, UNKNOWN_DISTANCE, numberOfCoworkers);
+        }
+        RestaurantDetailResult result = detailSearch.getResult();
+        String photoUrl = null;
+        if (result.getPhotos() != null && !result.getPhotos().isEmpty()) {
+            photoUrl = getPhotoRequest(result.getPhotos().get(0).getPhotoReference());
+        }
+        return new RestaurantRow(placeId, name, result.getVicinity() != null ? result.getVicinity() : address, true,
+                getRatingOnThree(result.getRating()), getOpeningHoursText(result), photoUrl,
+                getDistanceInMeters(result.getGeometry().getLocation().getLat(), result.getGeometry().getLocation().getLng(), myPosition),
+                numberOfCoworkers);
+    }
+
+    public String getPlaceId() {
+        return placeId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public boolean hasDetail() {
+        return hasDetail;
+    }
+
+    public float getRatingOnThree() {
+        return ratingOnThree;
+    }
+
+    // 0 when the detail is not there
+    @StringRes
+    public int getOpeningHoursText() {
+        return openingHoursText;
+    }
+
+    @Nullable
+    public String getPhotoUrl() {
+        return photoUrl;
+    }
+
+    // In meters, UNKNOWN_DISTANCE without position
+    public int getDistanceInMeters() {
+        return distanceInMeters;
+    }
+
+    // "120m", empty without position
+    public String getDistance() {
+        return distance;
+    }
+
+    public int getNumberOfCoworkers() {
+        return numberOfCoworkers;
+    }
+
+    // "(n)", empty when nobody eats there
+    public String getCoworkers() {
+        return coworkers;
+    }
+
+    // Same row except the number of coworkers and the distance, the adapter then only rebinds those texts
+    public boolean hasSameDetail(RestaurantRow other) {
+        return hasDetail == other.hasDetail
+                && Float.compare(ratingOnThree, other.ratingOnThree) == 0
+                && openingHoursText == other.openingHoursText
+                && Objects.equals(placeId, other.placeId)
+                && Objects.equals(name, other.name)
+                && Objects.equals(address, other.address)
+                && Objects.equals(photoUrl, other.photoUrl);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RestaurantRow that = (RestaurantRow) o;
+        return numberOfCoworkers == that.numberOfCoworkers && distanceInMeters == that.distanceInMeters && hasSameDetail(that);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(placeId, name, address, hasDetail, ratingOnThree, openingHoursText, photoUrl, distanceInMeters, numberOfCoworkers);
+    }
+
+    @VisibleForTesting
+    public static float getRatingOnThree(double rating) {
+        return (float) (rating / 1.66);
+    }
+
+    @VisibleForTesting
+    public static int getOpeningHoursText(ResultsItem restaurant) {
+        if (restaurant.getOpeningHours() != null) {
+            if (restaurant.getOpeningHours().isOpenNow()) {
+                return R.string.Open_now;
+            } else {
+                return R.string.Close_now;
+            }
+        } else {
+            return R.string.we_dont_know;
+        }
+    }
+
+    private static int getOpeningHoursText(RestaurantDetailResult restaurant) {
+        if (restaurant.getOpeningHours() != null) {
+            if (restaurant.getOpeningHours().isOpenNow()) {
+                return R.string.Open_now;
+            } else {
+                return R.string.Close_now;
+            }
+        } else {
+            return R.string.we_dont_know;
+        }
+    }
+
+    @VisibleForTesting
+    public static String getPhotoRequest(String photoReference) {
+        String base = "https://maps.googleapis.com/maps/api/place/photo?";
+        String key = "key=" + BuildConfig.MAPS_API_KEY;
+        String reference = "&photoreference=" + photoReference;
+        String maxH = "&maxheight=157";
+        String maxW = "&maxwidth=157";
+        return base + key + reference + maxH + maxW;
+    }
+
+    @VisibleForTesting
+    public static int getNumberOfReservations(String placeId, @Nullable DinersIndex dinersIndex) {
+        return dinersIndex == null ? 0 : dinersIndex.getNumberOfDiners(placeId);
+    }
+
+    @VisibleForTesting
+    public static int getDistanceInMeters(double lat, double lng, @Nullable LatLng myPosition) {
+        if (myPosition == null) {
+            return UNKNOWN_DISTANCE;
+        }
+        return (int) SphericalUtil.computeDistanceBetween(new LatLng(lat, lng), myPosition);
+    }
+
+    private static String getMainText(PredictionsResultItem prediction) {
+        if (prediction.getStructuredFormatting() != null && prediction.getStructuredFormatting().getMainText() != null) {
+            return prediction.getStructuredFormatting().getMainText();
+        }
+        return prediction.getDescription();
+    }
+
+
+}
@@ -15,7 +15,6 @@ import android.location.Location;
 import android.location.LocationManager;
 import android.os.Bundle;
 import android.os.Looper;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuInflater;
@@ -37,8 +36,10 @@ import androidx.lifecycle.ViewModelProvider;
 import androidx.lifecycle.ViewModelStoreOwner;
 
 import com.go4lunch.R;
+import com.go4lunch.model.autocomplete.PredictionsResultItem;
+import com.go4lunch.model.details.DetailProjection;
 import com.go4lunch.model.details.DetailSearch;
-import com.go4lunch.model.firestore.User;
+import com.go4lunch.model.firestore.DinersIndex;
 import com.go4lunch.model.nearbysearch.ResultsItem;
 import com.go4lunch.ui.home.restaurantdetailactivity.RestaurantDetailActivity;
 import com.google.android.gms.common.api.ApiException;
@@ -71,11 +72,15 @@ import java.util.List;
 public class MapViewFragment extends Fragment implements OnMapReadyCallback {
 
     private GoogleMap mMap;
+    private MarkerManager markerManager;
+    // Marker displayed until the first position of the user
+    private Marker startMarker;
     private LocationCallback locationCallback;
     public static LatLng myPosition;
     public MapViewViewModel mapViewViewModel;
-    private final List<User> listOfUserWhoChose = new ArrayList<>();
+    private DinersIndex dinersIndex = new DinersIndex();
     private final List<ResultsItem> listOfRestaurants = new ArrayList<>();
+    private boolean isAutocompleteObserved;
 
     private static final int LOCATION_REQUEST_INTERVAL_MS = 10_000;
     private static final float SMALLEST_DISPLACEMENT_THRESHOLD_METER = 25;
@@ -110,44 +115,47 @@ public class MapViewFragment extends Fragment implements OnMapReadyCallback {
 
     }
 
+    // Autocomplete results replace the restaurants on the map, each new result replaces the previous one
+    // A pin needs the position of the restaurant, so the detail of every prediction is asked with the PIN fields only
     private void setupObserver() {
-        mMap.clear();
-        mMap.addMarker(new MarkerOptions()
-                .position(myPosition)
-                .title("My position"));
-        mapViewViewModel.getAutocompleteSearchResultFromVM().observe(getViewLifecycleOwner(), autocompleteSearch -> {
-            for (DetailSearch detailSearch : autocompleteSearch) {
-                LatLng restaurantPositionVac = new LatLng(detailSearch.getResult().getGeometry().getLocation().getLat(),
-                        detailSearch.getResult().getGeometry().getLocation().getLng());
-
-                String placeId = detailSearch.getResult().getPlaceId();
-                String name = detailSearch.getResult().getName();
-
-                MarkerOptions restaurantMarkerOptionsVac;
-                if (isBookedOrNot(placeId, listOfUserWhoChose)) {
-                    restaurantMarkerOptionsVac = new MarkerOptions()
-                            .position(restaurantPositionVac)
-                            .icon(BitmapFromVector(requireContext(), R.drawable.baseline_booked_restaurant_24));
-                } else {
-                    restaurantMarkerOptionsVac = new MarkerOptions()
-                            .position(restaurantPositionVac)
-                            .icon(BitmapFromVector(requireContext(), R.drawable.baseline_unreserved_restaurant_24));
-                }
-                Marker restaurantMarkerVac = mMap.addMarker(restaurantMarkerOptionsVac);
-                restaurantMarkerVac.setTag(placeId);
-                restaurantMarkerVac.setTitle(name);
+        if (isAutocompleteObserved) {
+            return;
+        }
+        isAutocompleteObserved = true;
+        // Nearby pages would not be displayed during the search
+        mapViewViewModel.stopNearbyPagination();
+        mapViewViewModel.getAutocompletePredictionsFromVM().observe(getViewLifecycleOwner(), predictions -> {
+            for (PredictionsResultItem prediction : predictions) {
+                mapViewViewModel.hydrateAutocompleteResult(prediction.getPlaceId(), DetailProjection.PIN);
             }
         });
+        mapViewViewModel.getAutocompleteSearchResultFromVM().observe(getViewLifecycleOwner(), this::displayMarkerOnSearchResults);
     }
 
-    @VisibleForTesting
-    public boolean isBookedOrNot(String placeId, List<User> users) {
-        for (User myUser : users) {
-            if (placeId.equals(myUser.getEatingPlaceId())) {
-                return true;
-            }
+    private void displayMarkerOnSearchResults(List<DetailSearch> autocompleteSearch) {
+        List<MarkerManager.Pin> pins = new ArrayList<>(autocompleteSearch.size());
+        for (DetailSearch detailSearch : autocompleteSearch) {
+            LatLng restaurantPositionVac = new LatLng(detailSearch.getResult().getGeometry().getLocation().getLat(),
+                    detailSearch.getResult().getGeometry().getLocation().getLng());
+            String placeId = detailSearch.getResult().getPlaceId();
+            pins.add(new MarkerManager.Pin(placeId, detailSearch.getResult().getName(), restaurantPositionVac, isBookedOrNot(placeId, dinersIndex)));
         }
-        return false;
+        markerManager.setPins(pins);
+    }
+
+    // Back to the nearby restaurants when the search is closed or emptied
+    private void removeObserverAndDisplayNearbyRestaurants() {
+        isAutocompleteObserved = false;
+        mapViewViewModel.getAutocompletePredictionsFromVM().removeObservers(getViewLifecycleOwner());
+        mapViewViewModel.getAutocompleteSearchResultFromVM().removeObservers(getViewLifecycleOwner());
+        if (markerManager != null) {
+            displayMarkerOnRestaurantPosition(listOfRestaurants);
+        }
+    }
+
+    @VisibleForTesting
+    public boolean isBookedOrNot(String placeId, DinersIndex dinersIndex) {
+        return dinersIndex.isBooked(placeId);
     }
 
     @Override
@@ -168,6 +176,16 @@ public class MapViewFragment extends Fragment implements OnMapReadyCallback {
 
             @Override
             public boolean onQueryTextChange(String newText) {
+                if (myPosition != null && mMap != null) {
+                    mapViewViewModel.searchAutocomplete(myPosition.latitude + "," + myPosition.longitude, newText);
+                    if (newText.trim().isEmpty()) {
+                        if (isAutocompleteObserved) {
+                            removeObserverAndDisplayNearbyRestaurants();
+                        }
+                    } else {
+                        setupObserver();
+                    }
+                }
                 return false;
             }
         });
@@ -180,11 +198,8 @@ public class MapViewFragment extends Fragment implements OnMapReadyCallback {
             @Override
             public void onViewDetachedFromWindow(View v) {
                 if (myPosition != null) {
-                    mMap.clear();
-                    mMap.addMarker(new MarkerOptions()
-                            .position(myPosition)
-                            .title("My position"));
-                    displayMarkerOnRestaurantPosition(listOfRestaurants);
+                    mapViewViewModel.searchAutocomplete(myPosition.latitude + "," + myPosition.longitude, "");
+                    removeObserverAndDisplayNearbyRestaurants();
                 }
             }
         });
@@ -270,6 +285,7 @@ public class MapViewFragment extends Fragment implements OnMapReadyCallback {
                 public void onLocationResult(@NonNull LocationResult locationResult) {
                     Location location = locationResult.getLastLocation();
                     myPosition = new LatLng(location.getLatitude(), location.getLongitude());
+                    mapViewViewModel.setMyPosition(myPosition);
                     if (mMap != null) {
                         moveAndDisplayMyPosition();
                         if (myPosition != null) {
@@ -296,52 +312,18 @@ public class MapViewFragment extends Fragment implements OnMapReadyCallback {
     }
 
     /**
-     * Method called for display marker on restaurant position
+     * Method called for display marker on restaurant position, only the markers which changed are touched
      */
-
-    int isBooked = 0;
-    Marker restaurantMarker;
-    MarkerOptions restaurantMarkerOptions;
-
     private void displayMarkerOnRestaurantPosition(List<ResultsItem> results) {
         if (getView() != null) {
-            mapViewViewModel.getListOfUsersWhoChoseRestaurant().observe(getViewLifecycleOwner(), users -> {
-                listOfUserWhoChose.clear();
-                listOfUserWhoChose.addAll(users);
-                for (ResultsItem myRestaurant : results) {
-                    LatLng restaurantPosition = new LatLng(myRestaurant.getGeometry().getLocation().getLat(),
-                            myRestaurant.getGeometry().getLocation().getLng());
-                    isBooked = 0;
-                    for (User myUser : users) {
-                        if (myRestaurant.getPlaceId().equals(myUser.getEatingPlaceId())) {
-                            isBooked++;
-                        } else {
-                            Log.e("Nothing", "Nothing");
-                        }
-                    }
-                    if (isBooked != 0) {
-                        restaurantMarkerOptions = new MarkerOptions()
-                                .position(restaurantPosition)
-                                .icon(BitmapFromVector(requireContext(), R.drawable.baseline_booked_restaurant_24));
-                    } else {
-                        restaurantMarkerOptions = new MarkerOptions()
-                                .position(restaurantPosition)
-                                .icon(BitmapFromVector(requireContext(), R.drawable.baseline_unreserved_restaurant_24));
-                    }
-                    restaurantMarker = mMap.addMarker(restaurantMarkerOptions);
-                    restaurantMarker.setTag(myRestaurant.getPlaceId());
-                    restaurantMarker.setTitle(myRestaurant.getName());
-                }
-            });
-            mMap.setOnMarkerClickListener(marker -> {
-                if (!marker.getTitle().equals("My position")) {
-                    Intent intent = new Intent(getContext(), RestaurantDetailActivity.class);
-                    intent.putExtra("placeId", marker.getTag().toString());
-                    intent.putExtra("name", marker.getTitle());
-                    ActivityCompat.startActivity(getContext(), intent, null);
-                }
-                return false;
-            });
+            List<MarkerManager.Pin> pins = new ArrayList<>(results.size());
+            for (ResultsItem myRestaurant : results) {
+                LatLng restaurantPosition = new LatLng(myRestaurant.getGeometry().getLocation().getLat(),
+                        myRestaurant.getGeometry().getLocation().getLng());
+                pins.add(new MarkerManager.Pin(myRestaurant.getPlaceId(), myRestaurant.getName(), restaurantPosition,
+                        isBookedOrNot(myRestaurant.getPlaceId(), dinersIndex)));
+            }
+            markerManager.setPins(pins);
         }
     }
 
@@ -371,10 +353,11 @@ public class MapViewFragment extends Fragment implements OnMapReadyCallback {
      * Method called for move the camera to the user position on map after recuperate his location
      */
     private void moveAndDisplayMyPosition() {
-        mMap.clear();
-        mMap.addMarker(new MarkerOptions()
-                .position(myPosition)
-                .title("My position"));
+        if (startMarker != null) {
+            startMarker.remove();
+            startMarker = null;
+        }
+        markerManager.setMyPosition(myPosition);
         CameraPosition cameraPosition = new CameraPosition.Builder().
                 target(myPosition).
                 zoom(14).
@@ -390,9 +373,21 @@ public class MapViewFragment extends Fragment implements OnMapReadyCallback {
     @Override
     public void onMapReady(GoogleMap googleMap) {
         mMap = googleMap;
+        markerManager = new MarkerManager(mMap, BitmapFromVector(requireContext(), R.drawable.baseline_booked_restaurant_24),
+                BitmapFromVector(requireContext(), R.drawable.baseline_unreserved_restaurant_24));
+        mMap.setOnMarkerClickListener(marker -> {
+            String placeId = markerManager.getPlaceId(marker);
+            if (placeId != null) {
+                Intent intent = new Intent(getContext(), RestaurantDetailActivity.class);
+                intent.putExtra("placeId", placeId);
+                intent.putExtra("name", marker.getTitle());
+                ActivityCompat.startActivity(getContext(), intent, null);
+            }
+            return false;
+        });
         if (myPosition == null) {
             LatLng startPosition = new LatLng(-34, 151); //new LatLng(48, 12);
-            mMap.addMarker(new MarkerOptions()
+            startMarker = mMap.addMarker(new MarkerOptions()
                     .position(startPosition)
                     .title("Sydney"));
             mMap.moveCamera(CameraUpdateFactory.newLatLng(startPosition));
@@ -404,6 +399,15 @@ public class MapViewFragment extends Fragment implements OnMapReadyCallback {
             listOfRestaurants.addAll(nearbySearch.getResults());
             displayMarkerOnRestaurantPosition(nearbySearch.getResults());
         });
+        // Observed once, the listener behind is shared with the other screens
+        mapViewViewModel.getDinersIndex().observe(getViewLifecycleOwner(), index -> {
+            dinersIndex = index;
+            if (!isAutocompleteObserved) {
+                displayMarkerOnRestaurantPosition(listOfRestaurants);
+            } else if (mapViewViewModel.getAutocompleteSearchResultFromVM().getValue() != null) {
+                displayMarkerOnSearchResults(mapViewViewModel.getAutocompleteSearchResultFromVM().getValue());
+            }
+        });
     }
 
     private void positionButtonListener(FloatingActionButton positionButton) {
@@ -4,14 +4,21 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.ViewModel;
 
 import com.go4lunch.di.DI;
+import com.go4lunch.model.autocomplete.PredictionsResultItem;
+import com.go4lunch.model.details.DetailProjection;
 import com.go4lunch.model.details.DetailSearch;
-import com.go4lunch.model.firestore.User;
+import com.go4lunch.model.firestore.DinersIndex;
 import com.go4lunch.model.nearbysearch.NearbySearch;
+import com.google.android.gms.maps.model.LatLng;
 
 import java.util.List;
 
 public class MapViewViewModel extends ViewModel {
 
+    public void setMyPosition(LatLng position) {
+        DI.getLocationRepository().setMyPosition(position);
+    }
+
     public void callNearbySearch(String position) {
         DI.getGooglePlaceRepository().callRestaurant(position);
     }
@@ -24,12 +31,28 @@ public class MapViewViewModel extends ViewModel {
         DI.getGooglePlaceRepository().callAutocompleteResult(position, input);
     }
 
+    public void stopNearbyPagination() {
+        DI.getGooglePlaceRepository().stopNearbyPagination();
+    }
+
+    public void searchAutocomplete(String position, String input) {
+        DI.getGooglePlaceRepository().searchAutocomplete(position, input);
+    }
+
+    public LiveData<List<PredictionsResultItem>> getAutocompletePredictionsFromVM() {
+        return DI.getGooglePlaceRepository().getAutocompletePredictions();
+    }
+
     public LiveData<List<DetailSearch>> getAutocompleteSearchResultFromVM() {
         return DI.getGooglePlaceRepository().getAutocompleteSearchResult();
     }
 
-    public LiveData<List<User>> getListOfUsersWhoChoseRestaurant() {
-        return DI.getFirestoreRepository().getListOfUsersWhoChoseRestaurant();
+    public void hydrateAutocompleteResult(String placeId, DetailProjection projection) {
+        DI.getGooglePlaceRepository().hydrateAutocompleteResult(placeId, projection);
+    }
+
+    public LiveData<DinersIndex> getDinersIndex() {
+        return DI.getFirestoreRepository().getDinersIndex();
     }
 
 
@@ -0,0 +1,118 @@
+package com.go4lunch.ui.home.mapviewfragment;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.Marker;
+import com.google.android.gms.maps.model.MarkerOptions;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Markers of the restaurants on the map, keyed by placeId.
+ * A new list of pins only adds the new restaurants, removes the ones which are not in the list anymore and changes the icon,
+ * the position or the title of the ones which changed, the other markers are left as they are. Must be used from the main thread.
+ */
+public class MarkerManager {
+
+    /**
+     * What a marker displays, compared with the pin of the previous list to know what to change
+     */
+    public static final class Pin {
+
+        private final String placeId;
+        private final String name;
+        private final LatLng position;
+        private final boolean booked;
+
+        public Pin(String placeId, String name, LatLng position, boolean booked) {
+            this.placeId = placeId;
+            this.name = name;
+            this.position = position;
+            this.booked = booked;
+        }
+    }
+
+    private final GoogleMap map;
+    // Created once, every marker of the same state shares its icon
+    private final BitmapDescriptor bookedIcon;
+    private final BitmapDescriptor unreservedIcon;
+    private final Map<String, Marker> markersByPlaceId = new HashMap<>();
+    private final Map<String, Pin> pinsByPlaceId = new HashMap<>();
+    private final Map<Marker, String> placeIdsByMarker = new HashMap<>();
+    private Marker myPositionMarker;
+
+    public MarkerManager(GoogleMap map, BitmapDescriptor bookedIcon, BitmapDescriptor unreservedIcon) {
+        this.map = map;
+        this.bookedIcon = bookedIcon;
+        this.unreservedIcon = unreservedIcon;
+    }
+
+    // The marker of the user is moved, not added again
+    public void setMyPosition(@NonNull LatLng position) {
+        if (myPositionMarker == null) {
+            myPositionMarker = map.addMarker(new MarkerOptions()
+                    .position(position)
+                    .title("My position"));
+        } else {
+            myPositionMarker.setPosition(position);
+        }
+    }
+
+    public void setPins(@NonNull List<Pin> pins) {
+        Set<String> placeIds = new HashSet<>();
+        for (Pin pin : pins) {
+            if (!placeIds.add(pin.placeId)) {
+                continue;
+            }
+            Pin previous = pinsByPlaceId.put(pin.placeId, pin);
+            Marker marker = markersByPlaceId.get(pin.placeId);
+            if (previous == null || marker == null) {
+                marker = map.addMarker(new MarkerOptions()
+                        .position(pin.position)
+                        .title(pin.name)
+                        .icon(pin.booked ? bookedIcon : unreservedIcon));
+                marker.setTag(pin.placeId);
+                markersByPlaceId.put(pin.placeId, marker);
+                placeIdsByMarker.put(marker, pin.placeId);
+                continue;
+            }
+            if (previous.booked != pin.booked) {
+                marker.setIcon(pin.booked ? bookedIcon : unreservedIcon);
+            }
+            if (!previous.position.equals(pin.position)) {
+                marker.setPosition(pin.position);
+            }
+            if (!Objects.equals(previous.name, pin.name)) {
+                marker.setTitle(pin.name);
+            }
+        }
+        Iterator<Map.Entry<String, Marker>> iterator = markersByPlaceId.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Marker> entry = iterator.next();
+            if (!placeIds.contains(entry.getKey())) {
+                entry.getValue().remove();
+                placeIdsByMarker.remove(entry.getValue());
+                pinsByPlaceId.remove(entry.getKey());
+                iterator.remove();
+            }
+        }
+    }
+
+    // placeId of the restaurant of the marker, null for the marker of the user
+    @Nullable
+    public String getPlaceId(Marker marker) {
+        return placeIdsByMarker.get(marker);
+    }
+
+
+}
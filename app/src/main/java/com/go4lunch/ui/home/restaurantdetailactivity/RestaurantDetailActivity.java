@@ -35,14 +35,17 @@ import com.google.android.material.snackbar.Snackbar;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 public class RestaurantDetailActivity extends AppCompatActivity {
 
     private ActivityRestaurantDetailBinding binding;
     public RestaurantDetailViewModel restaurantDetailViewModel;
-    List<String> listOfRestaurantsLiked;
+    // Place ids liked by the user, the state of the like button is read from it
+    private final Set<String> likedPlaceIds = new HashSet<>();
     String placeId;
     String nameOfCurrentRestaurant;
     String addressOfCurrentRestaurant;
@@ -58,22 +61,26 @@ public class RestaurantDetailActivity extends AppCompatActivity {
         setContentView(binding.getRoot());
         mRecyclerView = binding.restaurantDetailsRecyclerView;
 
-        restaurantDetailViewModel = new ViewModelProvider(this).get(RestaurantDetailViewModel.class);
-        restaurantDetailViewModel.getUserData().addOnSuccessListener(user -> {
-            listOfRestaurantsLiked = user.getListOfRestaurantsLiked();
-            setLikeButtonChecked(listOfRestaurantsLiked.contains(nameOfCurrentRestaurant));
-        });
-
         Intent intent = getIntent();
         placeId = intent.getStringExtra("placeId");
         nameOfCurrentRestaurant = intent.getStringExtra("name");
         addressOfCurrentRestaurant = intent.getStringExtra("address");
 
-        restaurantDetailViewModel.getListOfUsersWhoChoseRestaurant().observe(this, users -> restaurantDetailViewModel.getUserData().addOnSuccessListener(myUser -> {
+        restaurantDetailViewModel = new ViewModelProvider(this).get(RestaurantDetailViewModel.class);
+        restaurantDetailViewModel.getUserData().addOnSuccessListener(user -> {
+            likedPlaceIds.clear();
+            if (user.getLikedPlaceIds() != null) {
+                likedPlaceIds.addAll(user.getLikedPlaceIds());
+            }
+            migrateLegacyLike(user);
+            setLikeButtonChecked(likedPlaceIds.contains(placeId));
+        });
+
+        restaurantDetailViewModel.getDinersIndex().observe(this, dinersIndex -> restaurantDetailViewModel.getUserData().addOnSuccessListener(myUser -> {
             List<User> sortedUserList = new ArrayList<>();
-            for (int i = 0; i < users.size(); i++) {
-                if (users.get(i).getEatingPlaceId().equals(placeId) & !users.get(i).getUid().equals(myUser.getUid())) {
-                    sortedUserList.add(users.get(i));
+            for (User diner : dinersIndex.getDiners(placeId)) {
+                if (!diner.getUid().equals(myUser.getUid())) {
+                    sortedUserList.add(diner);
                 }
             }
             mAdapter = new RestaurantDetailAdapter(sortedUserList);
@@ -123,20 +130,19 @@ public class RestaurantDetailActivity extends AppCompatActivity {
                 restaurantDetailViewModel.getUserData().addOnSuccessListener(new OnSuccessListener<User>() {
                     @Override
                     public void onSuccess(User user) {
-                        if (placeId.equals(user.getEatingPlaceId())) {
-                            restaurantDetailViewModel.updateEatingPlaceId(" ");
-                            restaurantDetailViewModel.updateEatingPlace(" ");
-                            showSnackBar(getString(R.string.choice_canceled));
-                        } else if (user.getEatingPlaceId().equals(" ")) {
-                            restaurantDetailViewModel.updateEatingPlaceId(user.setEatingPlaceId(placeId));
-                            restaurantDetailViewModel.updateEatingPlace(user.setEatingPlace(nameOfCurrentRestaurant));
-                            showSnackBar(getString(R.string.success_chosen_restaurant));
-                        } else if (!user.getEatingPlaceId().equals(placeId)) {
-                            restaurantDetailViewModel.updateEatingPlaceId(user.setEatingPlaceId(placeId));
-                            restaurantDetailViewModel.updateEatingPlace(user.setEatingPlace(nameOfCurrentRestaurant));
-                            showSnackBar(getString(R.string.choice_updated));
-                        }
-                        this.notificationWorker();
+                        restaurantDetailViewModel.getTodayLunchChoice().addOnSuccessListener(lunchChoice -> {
+                            if (lunchChoice != null && placeId.equals(lunchChoice.getEatingPlaceId())) {
+                                restaurantDetailViewModel.cancelEatingPlace();
+                                showSnackBar(getString(R.string.choice_canceled));
+                            } else if (lunchChoice == null) {
+                                restaurantDetailViewModel.chooseEatingPlace(user, placeId, nameOfCurrentRestaurant);
+                                showSnackBar(getString(R.string.success_chosen_restaurant));
+                            } else {
+                                restaurantDetailViewModel.chooseEatingPlace(user, placeId, nameOfCurrentRestaurant);
+                                showSnackBar(getString(R.string.choice_updated));
+                            }
+                            notificationWorker();
+                        });
                     }
 
                     public long getMillisecondsUntilAHours(int hours, int minutes) {
@@ -189,18 +195,22 @@ public class RestaurantDetailActivity extends AppCompatActivity {
 
         MaterialButton likeButton = binding.likeButton;
         likeButton.setOnClickListener(v -> {
-            if (listOfRestaurantsLiked.contains(nameOfCurrentRestaurant)) {
-                listOfRestaurantsLiked.remove(nameOfCurrentRestaurant);
-                restaurantDetailViewModel.updateListOfRestaurantsLiked(listOfRestaurantsLiked).addOnSuccessListener(unused -> {
-                    showSnackBar(getString(R.string.restaurant_unliked));
-                    setLikeButtonChecked(false);
-                }).addOnFailureListener(e -> showSnackBar(getString(R.string.error_unlike)));
-            } else if (!listOfRestaurantsLiked.contains(nameOfCurrentRestaurant)) {
-                listOfRestaurantsLiked.add(nameOfCurrentRestaurant);
-                restaurantDetailViewModel.updateListOfRestaurantsLiked(listOfRestaurantsLiked).addOnSuccessListener(unused -> {
-                    showSnackBar(getString(R.string.restaurant_liked));
+            if (likedPlaceIds.contains(placeId)) {
+                likedPlaceIds.remove(placeId);
+                setLikeButtonChecked(false);
+                restaurantDetailViewModel.unlikeRestaurant(placeId).addOnSuccessListener(unused -> showSnackBar(getString(R.string.restaurant_unliked))).addOnFailureListener(e -> {
+                    likedPlaceIds.add(placeId);
                     setLikeButtonChecked(true);
-                }).addOnFailureListener(e -> showSnackBar(getString(R.string.error_like)));
+                    showSnackBar(getString(R.string.error_unlike));
+                });
+            } else {
+                likedPlaceIds.add(placeId);
+                setLikeButtonChecked(true);
+                restaurantDetailViewModel.likeRestaurant(placeId).addOnSuccessListener(unused -> showSnackBar(getString(R.string.restaurant_liked))).addOnFailureListener(e -> {
+                    likedPlaceIds.remove(placeId);
+                    setLikeButtonChecked(false);
+                    showSnackBar(getString(R.string.error_like));
+                });
             }
         });
 
@@ -217,6 +227,20 @@ public class RestaurantDetailActivity extends AppCompatActivity {
 
     }
 
+    // The previous versions liked by restaurant name, a like of this restaurant is moved to its place id
+    private void migrateLegacyLike(User user) {
+        List<String> legacyLikes = user.getListOfRestaurantsLiked();
+        if (legacyLikes == null) {
+            return;
+        }
+        if (legacyLikes.isEmpty()) {
+            restaurantDetailViewModel.deleteLegacyLikes();
+        } else if (nameOfCurrentRestaurant != null && legacyLikes.contains(nameOfCurrentRestaurant)) {
+            likedPlaceIds.add(placeId);
+            restaurantDetailViewModel.migrateLegacyLike(placeId, nameOfCurrentRestaurant);
+        }
+    }
+
     private void setLikeButtonChecked(Boolean checked) {
         Drawable likeButtonDrawable = binding.likeButton.getCompoundDrawables()[1];
         if (checked) {
@@ -5,10 +5,11 @@ import androidx.lifecycle.ViewModel;
 
 import com.go4lunch.di.DI;
 import com.go4lunch.model.details.DetailSearch;
+import com.go4lunch.model.firestore.DinersIndex;
+import com.go4lunch.model.firestore.LunchChoice;
 import com.go4lunch.model.firestore.User;
 import com.google.android.gms.tasks.Task;
 
-import java.util.List;
 
 public class RestaurantDetailViewModel extends ViewModel {
 
@@ -20,25 +21,41 @@ public class RestaurantDetailViewModel extends ViewModel {
         return DI.getGooglePlaceRepository().getDetailSearchResult();
     }
 
-    // Get the user from Firestore and cast it to a User model Object
+    // Get the current user, from the cache once it has been read
     public Task<User> getUserData() {
-        return DI.getFirestoreRepository().getUserData().continueWith(task -> task.getResult().toObject(User.class));
+        return DI.getFirestoreRepository().getCurrentUserData();
     }
 
-    public Task<Void> updateEatingPlaceId(String eatingPlaceId) {
-        return DI.getFirestoreRepository().updateEatingPlaceId(eatingPlaceId);
+    public Task<LunchChoice> getTodayLunchChoice() {
+        return DI.getFirestoreRepository().getTodayLunchChoice();
     }
 
-    public Task<Void> updateEatingPlace(String eatingPlace) {
-        return DI.getFirestoreRepository().updateEatingPlace(eatingPlace);
+    public Task<Void> chooseEatingPlace(User user, String eatingPlaceId, String eatingPlace) {
+        return DI.getFirestoreRepository().chooseEatingPlace(user, eatingPlaceId, eatingPlace);
     }
 
-    public Task<Void> updateListOfRestaurantsLiked(List<String> listOfRestaurantsLiked) {
-        return DI.getFirestoreRepository().updateListOfRestaurantsLiked(listOfRestaurantsLiked);
+    public Task<Void> cancelEatingPlace() {
+        return DI.getFirestoreRepository().cancelEatingPlace();
     }
 
-    public LiveData<List<User>> getListOfUsersWhoChoseRestaurant() {
-        return DI.getFirestoreRepository().getListOfUsersWhoChoseRestaurant();
+    public Task<Void> likeRestaurant(String placeId) {
+        return DI.getFirestoreRepository().likeRestaurant(placeId);
+    }
+
+    public Task<Void> unlikeRestaurant(String placeId) {
+        return DI.getFirestoreRepository().unlikeRestaurant(placeId);
+    }
+
+    public Task<Void> migrateLegacyLike(String placeId, String restaurantName) {
+        return DI.getFirestoreRepository().migrateLegacyLike(placeId, restaurantName);
+    }
+
+    public Task<Void> deleteLegacyLikes() {
+        return DI.getFirestoreRepository().deleteLegacyLikes();
+    }
+
+    public LiveData<DinersIndex> getDinersIndex() {
+        return DI.getFirestoreRepository().getDinersIndex();
     }
 
 
@@ -9,18 +9,14 @@ import android.os.Build;
 import androidx.annotation.NonNull;
 import androidx.core.app.NotificationCompat;
 import androidx.work.Data;
-import androidx.work.ExistingWorkPolicy;
-import androidx.work.OneTimeWorkRequest;
-import androidx.work.WorkManager;
 import androidx.work.Worker;
 import androidx.work.WorkerParameters;
 
 import com.go4lunch.R;
 import com.go4lunch.di.DI;
-import com.go4lunch.model.firestore.User;
+import com.go4lunch.model.firestore.LunchChoice;
 
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 public class EatingPlaceNotificationWorker extends Worker {
 
@@ -31,12 +27,9 @@ public class EatingPlaceNotificationWorker extends Worker {
     public static final String KEY_NOTIFICATION_MESSAGE = "KEY_NOTIFICATION_MESSAGE";
     public static final String KEY_NOTIFICATION_MESSAGE_JOIN = "KEY_NOTIFICATION_MESSAGE_JOIN";
     public static final String USER_NAME = "USER_NAME";
-    String eatingPlaceIdFromDb;
-    private final Context context;
 
     public EatingPlaceNotificationWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
         super(context, workerParams);
-        this.context = context;
     }
 
     @NonNull
@@ -51,17 +44,17 @@ public class EatingPlaceNotificationWorker extends Worker {
         String title = data.getString(KEY_NOTIFICATION_TITLE);
         String message = data.getString(KEY_NOTIFICATION_MESSAGE);
         if (!eatingPlace.equals(" ")) {
-            DI.getFirestoreRepository().getUserData().addOnSuccessListener(documentSnapshot -> {
-                eatingPlaceIdFromDb = documentSnapshot.get("eatingPlaceId").toString();
-                if (!eatingPlaceIdFromDb.equals(" ")) {
-                    DI.getFirestoreRepository().getUsersCollection().whereEqualTo("eatingPlaceId", eatingPlaceId).get().addOnCompleteListener(task -> {
+            // No choice today means the choice was cancelled since the notification was planned
+            DI.getFirestoreRepository().getTodayLunchChoice().addOnSuccessListener(todayLunchChoice -> {
+                if (todayLunchChoice != null) {
+                    DI.getFirestoreRepository().getTodayLunchChoices(eatingPlaceId).addOnCompleteListener(task -> {
                         if (task.isSuccessful()) {
-                            List<User> users = task.getResult().toObjects(User.class);
-                            if (users.size() > 1) {
+                            List<LunchChoice> lunchChoices = task.getResult();
+                            if (lunchChoices.size() > 1) {
                                 String userList = "";
-                                for (User user : users) {
-                                    if (!user.getUsername().equals(userName)) {
-                                        userList += " " + user.getUsername() + ",";
+                                for (LunchChoice lunchChoice : lunchChoices) {
+                                    if (!lunchChoice.getUsername().equals(userName)) {
+                                        userList += " " + lunchChoice.getUsername() + ",";
                                     }
                                 }
                                 displayNotification(title, message + " " + eatingPlace + "\n" + eatingPlaceAddress + "\n" + joiningMessage + "\n" + removeLastChar(userList));
@@ -70,8 +63,6 @@ public class EatingPlaceNotificationWorker extends Worker {
                             }
                         }
                     });
-
-                    cleanEatingPlaceWorker(context);
                 }
             });
         }
@@ -96,13 +87,6 @@ public class EatingPlaceNotificationWorker extends Worker {
         manager.notify(1, builder.build());
     }
 
-    private void cleanEatingPlaceWorker(Context context) {
-        OneTimeWorkRequest workRequest = new OneTimeWorkRequest.Builder(ClearEatingPlaceWorker.class)
-                .setInitialDelay(15, TimeUnit.MINUTES)
-                .build();
-        WorkManager.getInstance(context).enqueueUniqueWork("clear", ExistingWorkPolicy.REPLACE, workRequest);
-    }
-
     public String removeLastChar(String s) {
         return (s == null || s.length() == 0) ? null : (s.substring(0, s.length() - 1));
     }
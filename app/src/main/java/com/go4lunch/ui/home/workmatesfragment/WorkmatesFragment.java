@@ -22,6 +22,7 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.go4lunch.R;
 import com.go4lunch.model.firestore.User;
+import com.go4lunch.model.firestore.UsersSnapshot;
 
 import org.jetbrains.annotations.NotNull;
 
@@ -35,8 +36,11 @@ public class WorkmatesFragment extends Fragment {
     public WorkmatesFragmentViewModel workmatesFragmentViewModel;
     List<User> mUsers = new ArrayList<>();
     List<User> mUsersFull = new ArrayList<>();
+    // Version of the last UsersSnapshot displayed, -1 if none
+    private long displayedVersion = -1;
+    private int selfIndex = -1;
+    private String currentFilter = "";
 
-    @SuppressLint("NotifyDataSetChanged")
     @Nullable
     @org.jetbrains.annotations.Nullable
     @Override
@@ -51,22 +55,110 @@ public class WorkmatesFragment extends Fragment {
         mRecyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
         mRecyclerView.setAdapter(mAdapter);
 
-        workmatesFragmentViewModel.getListOfUsers().observe(getViewLifecycleOwner(), users -> workmatesFragmentViewModel.getUserData().addOnSuccessListener(myUser -> {
-            for (User user : users) {
-                if (user.getUid().equals(myUser.getUid())) {
-                    users.remove(user);
-                    break;
-                }
-            }
-            mUsers.clear();
-            mUsers.addAll(users);
-            mUsersFull.clear();
-            mUsersFull.addAll(users);
-            mAdapter.notifyDataSetChanged();
-        }));
+        workmatesFragmentViewModel.getUsersSnapshot().observe(getViewLifecycleOwner(), this::displayUsers);
+        // Today's choices are in their own collection, a new choice only rebinds the rows
+        workmatesFragmentViewModel.getDinersIndex().observe(getViewLifecycleOwner(), dinersIndex -> {
+            mAdapter.setDinersIndex(dinersIndex);
+            mAdapter.notifyItemRangeChanged(0, mAdapter.getItemCount());
+        });
         return view;
     }
 
+    /**
+     * The current user is not displayed, so the indexes of the snapshot are shifted by one after him.
+     * Without filter the changes are replayed on the displayed list with positional notifies, with a filter the filter runs again.
+     * A snapshot that doesn't follow the displayed one (first one, fragment recreated) reloads the whole list
+     */
+    @SuppressLint("NotifyDataSetChanged")
+    private void displayUsers(UsersSnapshot snapshot) {
+        String myUid = workmatesFragmentViewModel.getCurrentUserId();
+        boolean replayChanges = snapshot.getVersion() == displayedVersion + 1 && currentFilter.isEmpty();
+        if (replayChanges) {
+            for (UsersSnapshot.UserChange change : snapshot.getChanges()) {
+                replayChange(change, myUid);
+            }
+        }
+        displayedVersion = snapshot.getVersion();
+        mUsersFull.clear();
+        selfIndex = -1;
+        for (int i = 0; i < snapshot.getUsers().size(); i++) {
+            User user = snapshot.getUsers().get(i);
+            if (user.getUid().equals(myUid)) {
+                selfIndex = i;
+            } else {
+                mUsersFull.add(user);
+            }
+        }
+        if (!replayChanges) {
+            if (currentFilter.isEmpty()) {
+                mUsers.clear();
+                mUsers.addAll(mUsersFull);
+                mAdapter.notifyDataSetChanged();
+            } else {
+                mAdapter.getFilter().filter(currentFilter);
+            }
+        }
+    }
+
+    // A MODIFIED change is a removal at oldIndex then an insertion at newIndex
+    private void replayChange(UsersSnapshot.UserChange change, String myUid) {
+        boolean isMe = change.getUser().getUid().equals(myUid);
+        int removedPosition = -1;
+        if (change.getType() != UsersSnapshot.ChangeType.ADDED) {
+            removedPosition = removeAt(change.getOldIndex(), isMe);
+        }
+        if (change.getType() == UsersSnapshot.ChangeType.REMOVED) {
+            if (!isMe) {
+                mAdapter.notifyItemRemoved(removedPosition);
+            }
+            return;
+        }
+        int insertedPosition = insertAt(change.getNewIndex(), change.getUser(), isMe);
+        if (isMe) {
+            return;
+        }
+        if (change.getType() == UsersSnapshot.ChangeType.ADDED) {
+            mAdapter.notifyItemInserted(insertedPosition);
+        } else if (removedPosition == insertedPosition) {
+            mAdapter.notifyItemChanged(insertedPosition);
+        } else {
+            mAdapter.notifyItemMoved(removedPosition, insertedPosition);
+            mAdapter.notifyItemChanged(insertedPosition);
+        }
+    }
+
+    // Return the displayed position removed, -1 for the current user
+    private int removeAt(int index, boolean isMe) {
+        if (isMe) {
+            selfIndex = -1;
+            return -1;
+        }
+        int position = toDisplayedPosition(index);
+        mUsers.remove(position);
+        if (selfIndex > index) {
+            selfIndex--;
+        }
+        return position;
+    }
+
+    // Return the displayed position inserted, -1 for the current user
+    private int insertAt(int index, User user, boolean isMe) {
+        if (isMe) {
+            selfIndex = index;
+            return -1;
+        }
+        int position = toDisplayedPosition(index);
+        mUsers.add(position, user);
+        if (selfIndex >= index) {
+            selfIndex++;
+        }
+        return position;
+    }
+
+    private int toDisplayedPosition(int index) {
+        return selfIndex != -1 && selfIndex < index ? index - 1 : index;
+    }
+
     @Override
     public void onCreateOptionsMenu(@NonNull Menu menu, MenuInflater menuInflater) {
         menuInflater.inflate(R.menu.search_menu, menu);
@@ -83,6 +175,7 @@ public class WorkmatesFragment extends Fragment {
 
             @Override
             public boolean onQueryTextChange(String newText) {
+                currentFilter = newText;
                 mAdapter.getFilter().filter(newText);
                 return false;
             }
@@ -21,6 +21,7 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
 import com.go4lunch.R;
+import com.go4lunch.model.firestore.DinersIndex;
 import com.go4lunch.model.firestore.User;
 import com.go4lunch.ui.home.chat.ChatActivity;
 import com.go4lunch.ui.home.restaurantdetailactivity.RestaurantDetailActivity;
@@ -36,12 +37,18 @@ public class WorkmatesFragmentAdapter extends RecyclerView.Adapter<WorkmatesFrag
     View itemView;
     private final List<User> listOfUsers;
     private final List<User> listOfUsersFull;
+    // Where the users eat today, the users documents don't hold it
+    private DinersIndex dinersIndex;
 
     public WorkmatesFragmentAdapter(List<User> listOfUsers, List<User> listOfUsersFull) {
         this.listOfUsers = listOfUsers;
         this.listOfUsersFull = listOfUsersFull;
     }
 
+    public void setDinersIndex(DinersIndex dinersIndex) {
+        this.dinersIndex = dinersIndex;
+    }
+
     @NonNull
     @NotNull
     @Override
@@ -54,24 +61,25 @@ public class WorkmatesFragmentAdapter extends RecyclerView.Adapter<WorkmatesFrag
     public void onBindViewHolder(@NonNull @NotNull WorkmatesFragmentAdapter.ViewHolder holder, int position) {
 
         String space = " ";
-        if (listOfUsers.get(position).getEatingPlaceId().equals(" ")) {
+        User diner = dinersIndex != null ? dinersIndex.getUser(listOfUsers.get(position).getUid()) : null;
+        if (diner == null) {
             TextView notDecidedTextView = new TextView(itemView.getContext());
             notDecidedTextView.setText(R.string.has_not_decided);
             holder.username.setTypeface(Typeface.defaultFromStyle(Typeface.ITALIC));
             holder.username.setTextColor(Color.parseColor("#C6C6C6"));
             holder.username.setText(MessageFormat.format("{0}{1}{2}", listOfUsers.get(position).getUsername(), space, notDecidedTextView.getText().toString()));
+            // The holder may come from a user who chose a restaurant
+            holder.username.setOnClickListener(null);
         } else {
             TextView isEatingTextView = new TextView(itemView.getContext());
             isEatingTextView.setText(R.string.is_eating_in);
-            holder.username.setText(MessageFormat.format("{0}{1}{2}{3}{4}", listOfUsers.get(position).getUsername(), space, isEatingTextView.getText().toString(), space, listOfUsers.get(position).getEatingPlace()));
+            holder.username.setText(MessageFormat.format("{0}{1}{2}{3}{4}", listOfUsers.get(position).getUsername(), space, isEatingTextView.getText().toString(), space, diner.getEatingPlace()));
             holder.username.setTextColor(Color.parseColor("#FF000000"));
             holder.username.setOnClickListener(v -> {
-                if (!listOfUsers.get(holder.getBindingAdapterPosition()).getEatingPlaceId().equals(" ")) {
-                    Intent intent = new Intent(v.getContext(), RestaurantDetailActivity.class);
-                    intent.putExtra("placeId", listOfUsers.get(holder.getBindingAdapterPosition()).getEatingPlaceId());
-                    intent.putExtra("name", listOfUsers.get(holder.getBindingAdapterPosition()).getEatingPlace());
-                    ActivityCompat.startActivity(v.getContext(), intent, null);
-                }
+                Intent intent = new Intent(v.getContext(), RestaurantDetailActivity.class);
+                intent.putExtra("placeId", diner.getEatingPlaceId());
+                intent.putExtra("name", diner.getEatingPlace());
+                ActivityCompat.startActivity(v.getContext(), intent, null);
             });
         }
 
@@ -4,19 +4,21 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.ViewModel;
 
 import com.go4lunch.di.DI;
-import com.go4lunch.model.firestore.User;
-import com.google.android.gms.tasks.Task;
-
-import java.util.List;
+import com.go4lunch.model.firestore.DinersIndex;
+import com.go4lunch.model.firestore.UsersSnapshot;
 
 public class WorkmatesFragmentViewModel extends ViewModel {
 
-    public LiveData<List<User>> getListOfUsers() {
-        return DI.getFirestoreRepository().getListOfUsers();
+    public LiveData<UsersSnapshot> getUsersSnapshot() {
+        return DI.getFirestoreRepository().getUsersSnapshot();
+    }
+
+    public LiveData<DinersIndex> getDinersIndex() {
+        return DI.getFirestoreRepository().getDinersIndex();
     }
 
-    public Task<User> getUserData() {
-        return DI.getFirestoreRepository().getUserData().continueWith(task -> task.getResult().toObject(User.class));
+    public String getCurrentUserId() {
+        return DI.getFirestoreRepository().getCurrentUserId();
     }
 
 
@@ -33,13 +33,13 @@ public class LunchFragment extends Fragment {
         lunchFragmentFragmentViewModel = new ViewModelProvider((ViewModelStoreOwner) requireContext()).get(LunchFragmentViewModel.class);
         ((AppCompatActivity) getActivity()).getSupportActionBar().setTitle(R.string.your_lunch);
 
-        lunchFragmentFragmentViewModel.getUserData().addOnSuccessListener(user -> {
-            eatingPlaceId = user.getEatingPlaceId();
-            eatingPlace = user.getEatingPlace();
-            if (user.getEatingPlaceId().equals(" ")) {
+        lunchFragmentFragmentViewModel.getTodayLunchChoice().addOnSuccessListener(lunchChoice -> {
+            if (lunchChoice == null) {
                 Toast.makeText(requireContext(), getString(R.string.not_selected_eating_place), Toast.LENGTH_SHORT).show();
                 requireActivity().onBackPressed();
             } else {
+                eatingPlaceId = lunchChoice.getEatingPlaceId();
+                eatingPlace = lunchChoice.getEatingPlace();
                 lunchFragmentFragmentViewModel.callRestaurantDetail(eatingPlaceId);
                 Intent intent = new Intent(requireContext(), RestaurantDetailActivity.class);
                 intent.putExtra("placeId", eatingPlaceId);
@@ -49,14 +49,14 @@ public class LunchFragment extends Fragment {
         });
 
         AppCompatButton yourLunchButton = view.findViewById(R.id.your_lunch_button);
-        yourLunchButton.setOnClickListener(v -> lunchFragmentFragmentViewModel.getUserData().addOnSuccessListener(user -> {
-            if (user.getEatingPlaceId().equals(" ")) {
+        yourLunchButton.setOnClickListener(v -> lunchFragmentFragmentViewModel.getTodayLunchChoice().addOnSuccessListener(lunchChoice -> {
+            if (lunchChoice == null) {
                 Toast.makeText(requireContext(), getString(R.string.not_selected_eating_place), Toast.LENGTH_SHORT).show();
                 requireActivity().onBackPressed();
             } else {
                 Intent intent = new Intent(requireContext(), RestaurantDetailActivity.class);
-                intent.putExtra("placeId", eatingPlaceId);
-                intent.putExtra("name", eatingPlace);
+                intent.putExtra("placeId", lunchChoice.getEatingPlaceId());
+                intent.putExtra("name", lunchChoice.getEatingPlace());
                 ActivityCompat.startActivity(requireContext(), intent, null);
             }
         }));
@@ -3,13 +3,13 @@ package com.go4lunch.ui.main.lunchfragment;
 import androidx.lifecycle.ViewModel;
 
 import com.go4lunch.di.DI;
-import com.go4lunch.model.firestore.User;
+import com.go4lunch.model.firestore.LunchChoice;
 import com.google.android.gms.tasks.Task;
 
 public class LunchFragmentViewModel extends ViewModel {
 
-    public Task<User> getUserData() {
-        return DI.getFirestoreRepository().getUserData().continueWith(task -> task.getResult().toObject(User.class));
+    public Task<LunchChoice> getTodayLunchChoice() {
+        return DI.getFirestoreRepository().getTodayLunchChoice();
     }
 
     public void callRestaurantDetail(String placeId) {
@@ -21,8 +21,8 @@ public class SettingsFragmentViewModel extends ViewModel {
      **/
 
     public Task<User> getUserData() {
-        // Get the user from Firestore and cast it to a User model Object
-        return DI.getFirestoreRepository().getUserData().continueWith(task -> task.getResult().toObject(User.class));
+        // Get the current user, from the cache once it has been read
+        return DI.getFirestoreRepository().getCurrentUserData();
     }
 
     public Task<Void> updateUsername(String username) {
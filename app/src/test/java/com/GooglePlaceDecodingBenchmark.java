@@ -0,0 +1,177 @@
+package com;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import com.go4lunch.model.GooglePlaceGson;
+import com.go4lunch.model.autocomplete.AutocompleteSearch;
+import com.go4lunch.model.details.DetailSearch;
+import com.go4lunch.model.details.RestaurantDetailResult;
+import com.go4lunch.model.nearbysearch.NearbySearch;
+import com.go4lunch.model.nearbysearch.ResultsItem;
+import com.google.gson.Gson;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reflective Gson against the streaming adapters of GooglePlaceGson, on Places answers recorded in src/test/resources/places.
+ * The benchmark is ignored by default, it only asserts on allocations as timings on a build machine are too noisy.
+ */
+public class GooglePlaceDecodingBenchmark {
+
+    private static final int WARM_UP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 2000;
+
+    private final Gson reflectiveGson = new Gson();
+    private final Gson streamingGson = GooglePlaceGson.create();
+
+    @Test
+    public void test_streamingNearbySearchDecodesLikeReflection() throws IOException {
+        String json = readPayload("nearbysearch.json");
+        NearbySearch expected = reflectiveGson.fromJson(json, NearbySearch.class);
+        NearbySearch actual = streamingGson.fromJson(json, NearbySearch.class);
+
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getNextPageToken(), actual.getNextPageToken());
+        assertEquals(expected.getResults().size(), actual.getResults().size());
+        for (int i = 0; i < expected.getResults().size(); i++) {
+            ResultsItem expectedResult = expected.getResults().get(i);
+            ResultsItem actualResult = actual.getResults().get(i);
+            assertEquals(expectedResult.getPlaceId(), actualResult.getPlaceId());
+            assertEquals(expectedResult.getName(), actualResult.getName());
+            assertEquals(expectedResult.getVicinity(), actualResult.getVicinity());
+            assertEquals(expectedResult.getRating(), actualResult.getRating(), 0);
+            assertEquals(expectedResult.getOpeningHours().isOpenNow(), actualResult.getOpeningHours().isOpenNow());
+            assertEquals(expectedResult.getPhotos().get(0).getPhotoReference(), actualResult.getPhotos().get(0).getPhotoReference());
+            assertEquals(expectedResult.getGeometry().getLocation().getLat(), actualResult.getGeometry().getLocation().getLat(), 0);
+            assertEquals(expectedResult.getGeometry().getLocation().getLng(), actualResult.getGeometry().getLocation().getLng(), 0);
+            // Never read by the app, so not decoded
+            assertNull(actualResult.getReference());
+            assertNull(actualResult.getScope());
+            assertNull(actualResult.getPlusCode());
+        }
+        assertNull(actual.getHtmlAttributions());
+    }
+
+    @Test
+    public void test_streamingDetailSearchDecodesLikeReflection() throws IOException {
+        String json = readPayload("details.json");
+        RestaurantDetailResult expected = reflectiveGson.fromJson(json, DetailSearch.class).getResult();
+        DetailSearch actualDetailSearch = streamingGson.fromJson(json, DetailSearch.class);
+        RestaurantDetailResult actual = actualDetailSearch.getResult();
+
+        assertEquals("OK", actualDetailSearch.getStatus());
+        assertEquals(expected.getPlaceId(), actual.getPlaceId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getVicinity(), actual.getVicinity());
+        assertEquals(expected.getWebsite(), actual.getWebsite());
+        assertEquals(expected.getUrl(), actual.getUrl());
+        assertEquals(expected.getFormattedPhoneNumber(), actual.getFormattedPhoneNumber());
+        assertEquals(expected.getRating(), actual.getRating(), 0);
+        assertEquals(expected.getOpeningHours().isOpenNow(), actual.getOpeningHours().isOpenNow());
+        assertEquals(expected.getOpeningHours().getWeekdayText(), actual.getOpeningHours().getWeekdayText());
+        assertEquals(expected.getPhotos().size(), actual.getPhotos().size());
+        assertEquals(expected.getGeometry().getLocation().getLat(), actual.getGeometry().getLocation().getLat(), 0);
+        assertNull(actual.getOpeningHours().getPeriods());
+    }
+
+    @Test
+    public void test_streamingAutocompleteSearchDecodesLikeReflection() throws IOException {
+        String json = readPayload("autocomplete.json");
+        AutocompleteSearch expected = reflectiveGson.fromJson(json, AutocompleteSearch.class);
+        AutocompleteSearch actual = streamingGson.fromJson(json, AutocompleteSearch.class);
+
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getPredictions().size(), actual.getPredictions().size());
+        for (int i = 0; i < expected.getPredictions().size(); i++) {
+            assertEquals(expected.getPredictions().get(i).getPlaceId(), actual.getPredictions().get(i).getPlaceId());
+            assertEquals(expected.getPredictions().get(i).getDescription(), actual.getPredictions().get(i).getDescription());
+            assertEquals(expected.getPredictions().get(i).getStructuredFormatting().getMainText(), actual.getPredictions().get(i).getStructuredFormatting().getMainText());
+            assertEquals(expected.getPredictions().get(i).getStructuredFormatting().getSecondaryText(), actual.getPredictions().get(i).getStructuredFormatting().getSecondaryText());
+            assertNull(actual.getPredictions().get(i).getTerms());
+        }
+    }
+
+    @Test
+    public void test_streamingAdaptersAcceptNull() {
+        assertNull(streamingGson.fromJson("null", NearbySearch.class));
+        DetailSearch detailSearch = streamingGson.fromJson("{\"result\":null,\"status\":\"NOT_FOUND\"}", DetailSearch.class);
+        assertNull(detailSearch.getResult());
+        assertEquals("NOT_FOUND", detailSearch.getStatus());
+    }
+
+    @Test
+    public void test_streamingGsonWritesWithReflection() throws IOException {
+        NearbySearch nearbySearch = streamingGson.fromJson(readPayload("nearbysearch.json"), NearbySearch.class);
+        String json = streamingGson.toJson(nearbySearch);
+        NearbySearch written = reflectiveGson.fromJson(json, NearbySearch.class);
+
+        assertEquals(nearbySearch.getStatus(), written.getStatus());
+        assertEquals(nearbySearch.getResults().size(), written.getResults().size());
+        assertEquals(nearbySearch.getResults().get(0).getPlaceId(), written.getResults().get(0).getPlaceId());
+        assertEquals("null", streamingGson.toJson(null, DetailSearch.class));
+    }
+
+    // Decodes each payload thousands of times, so it's left out of the unit tests and run on demand
+    @Ignore("Benchmark, run on demand")
+    @Test
+    public void test_streamingDecodingAllocatesLess() throws IOException {
+        assertStreamingAllocatesLess(readPayload("nearbysearch.json"), NearbySearch.class);
+        assertStreamingAllocatesLess(readPayload("details.json"), DetailSearch.class);
+        assertStreamingAllocatesLess(readPayload("autocomplete.json"), AutocompleteSearch.class);
+    }
+
+    private void assertStreamingAllocatesLess(String json, Class<?> type) {
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            assertNotNull(reflectiveGson.fromJson(json, type));
+            assertNotNull(streamingGson.fromJson(json, type));
+        }
+        long reflective = measureAllocatedBytes(reflectiveGson, json, type);
+        long streaming = measureAllocatedBytes(streamingGson, json, type);
+        assumeTrue(reflective != -1);
+        assertTrue(type.getSimpleName() + " : streaming " + streaming + " bytes, reflective " + reflective + " bytes", streaming < reflective);
+    }
+
+    // Allocated bytes of one decode, -1 when the JVM can't measure them
+    private static long measureAllocatedBytes(Gson gson, String json, Class<?> type) {
+        long allocatedBefore = getAllocatedBytes();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            gson.fromJson(json, type);
+        }
+        long allocatedAfter = getAllocatedBytes();
+        return allocatedBefore == -1 ? -1 : (allocatedAfter - allocatedBefore) / MEASURED_ITERATIONS;
+    }
+
+    private static long getAllocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private String readPayload(String fileName) throws IOException {
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream("places/" + fileName)) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+            return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+
+}
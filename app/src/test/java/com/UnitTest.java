@@ -2,22 +2,45 @@ package com;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import com.go4lunch.BuildConfig;
 import com.go4lunch.R;
+import com.go4lunch.model.details.DetailProjection;
+import com.go4lunch.model.details.DetailSearch;
+import com.go4lunch.model.details.RestaurantDetailResult;
+import com.go4lunch.model.firestore.DinersIndex;
+import com.go4lunch.model.firestore.LunchChoice;
 import com.go4lunch.model.firestore.User;
+import com.go4lunch.model.firestore.UserSummary;
+import com.go4lunch.model.firestore.UsersSnapshot;
+import com.go4lunch.model.nearbysearch.Geometry;
+import com.go4lunch.model.nearbysearch.Location;
 import com.go4lunch.model.nearbysearch.OpeningHours;
 import com.go4lunch.model.nearbysearch.PhotosItem;
 import com.go4lunch.model.nearbysearch.ResultsItem;
-import com.go4lunch.ui.home.listviewfragment.ListViewFragmentAdapter;
+import com.go4lunch.repositories.DetailFanOut;
+import com.go4lunch.repositories.cache.ExpiringLruCache;
+import com.go4lunch.repositories.cache.Geohash;
+import com.go4lunch.repositories.cache.NearbyTileCache;
+import com.go4lunch.ui.home.listviewfragment.RestaurantRow;
 import com.go4lunch.ui.home.mapviewfragment.MapViewFragment;
 import com.go4lunch.ui.home.workmatesfragment.WorkmatesFragmentAdapter;
+import com.google.android.gms.maps.model.LatLng;
 
 import org.junit.Test;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import retrofit2.Callback;
+import retrofit2.Response;
 
 /**
  * Example local unit test, which will execute on the development machine (host).
@@ -29,34 +52,30 @@ public class UnitTest {
 
     @Test
     public void test_getRatingOnThree() {
-        ListViewFragmentAdapter listViewFragmentAdapter = new ListViewFragmentAdapter(null, null);
-
-        float rating1 = listViewFragmentAdapter.getRatingOnThree(1);
+        float rating1 = RestaurantRow.getRatingOnThree(1);
         assertEquals(0.60, rating1, 0.1);
 
-        float rating2 = listViewFragmentAdapter.getRatingOnThree(2);
+        float rating2 = RestaurantRow.getRatingOnThree(2);
         assertEquals(1.20, rating2, 0.1);
 
-        float rating3 = listViewFragmentAdapter.getRatingOnThree(3);
+        float rating3 = RestaurantRow.getRatingOnThree(3);
         assertEquals(1.80, rating3, 0.1);
 
-        float rating4 = listViewFragmentAdapter.getRatingOnThree(4);
+        float rating4 = RestaurantRow.getRatingOnThree(4);
         assertEquals(2.40, rating4, 0.1);
     }
 
     @Test
     public void test_getOpeningHoursText() {
-        ListViewFragmentAdapter adapter = new ListViewFragmentAdapter(null, null);
-
         ResultsItem resultsItem = new ResultsItem();
-        assertEquals(R.string.we_dont_know, adapter.getOpeningHoursText(resultsItem));
+        assertEquals(R.string.we_dont_know, RestaurantRow.getOpeningHoursText(resultsItem));
 
         resultsItem.setOpeningHours(new OpeningHours());
         resultsItem.getOpeningHours().setOpenNow(true);
-        assertEquals(R.string.Open_now, adapter.getOpeningHoursText(resultsItem));
+        assertEquals(R.string.Open_now, RestaurantRow.getOpeningHoursText(resultsItem));
 
         resultsItem.getOpeningHours().setOpenNow(false);
-        assertEquals(R.string.Close_now, adapter.getOpeningHoursText(resultsItem));
+        assertEquals(R.string.Close_now, RestaurantRow.getOpeningHoursText(resultsItem));
     }
 
     @Test
@@ -79,9 +98,8 @@ public class UnitTest {
         resultsItemList.add(resultsItem1);
         resultsItemList.add(resultsItem2);
 
-        ListViewFragmentAdapter adapter = new ListViewFragmentAdapter(resultsItemList, null);
-        assertEquals(resultsItemList.get(0).getPhotos().get(0).getPhotoReference(), adapter.getPhotoRequest("photoReference1"));
-        assertEquals(resultsItemList.get(1).getPhotos().get(1).getPhotoReference(), adapter.getPhotoRequest("photoReference2"));
+        assertEquals(resultsItemList.get(0).getPhotos().get(0).getPhotoReference(), RestaurantRow.getPhotoRequest("photoReference1"));
+        assertEquals(resultsItemList.get(1).getPhotos().get(1).getPhotoReference(), RestaurantRow.getPhotoRequest("photoReference2"));
     }
 
     @Test
@@ -91,12 +109,19 @@ public class UnitTest {
         User user1 = new User();
         User user2 = new User();
         User user3 = new User();
+        user1.setUid("1");
+        user2.setUid("2");
+        user3.setUid("3");
         user1.setEatingPlaceId(eatingPlaceId);
         user2.setEatingPlaceId(eatingPlaceId);
         user3.setEatingPlaceId(eatingPlaceId);
         userList.add(user1);
         userList.add(user2);
         userList.add(user3);
+        DinersIndex dinersIndex = new DinersIndex();
+        for (User user : userList) {
+            dinersIndex.put(user);
+        }
 
         String placeId = "Del Arte";
         List<ResultsItem> resultsItemList = new ArrayList<>();
@@ -104,8 +129,7 @@ public class UnitTest {
         resultsItem1.setPlaceId(placeId);
         resultsItemList.add(resultsItem1);
 
-        ListViewFragmentAdapter adapter = new ListViewFragmentAdapter(null, null);
-        int n = adapter.getNumberOfReservations(resultsItemList.get(0).getPlaceId(), userList);
+        int n = RestaurantRow.getNumberOfReservations(resultsItemList.get(0).getPlaceId(), dinersIndex);
         assertEquals(3, n);
 
 
@@ -114,12 +138,19 @@ public class UnitTest {
         User user4 = new User();
         User user5 = new User();
         User user6 = new User();
+        user4.setUid("4");
+        user5.setUid("5");
+        user6.setUid("6");
         user4.setEatingPlaceId(eatingPlaceId2);
         user5.setEatingPlaceId(eatingPlaceId2);
         user6.setEatingPlaceId(eatingPlaceId);
         userList2.add(user4);
         userList2.add(user5);
         userList2.add(user6);
+        DinersIndex dinersIndex2 = new DinersIndex();
+        for (User user : userList2) {
+            dinersIndex2.put(user);
+        }
 
         String placeId2 = "Burger";
         List<ResultsItem> resultsItemList2 = new ArrayList<>();
@@ -127,11 +158,56 @@ public class UnitTest {
         resultsItem2.setPlaceId(placeId2);
         resultsItemList2.add(resultsItem2);
 
-        ListViewFragmentAdapter adapter2 = new ListViewFragmentAdapter(null, null);
-        int n2 = adapter2.getNumberOfReservations(resultsItemList2.get(0).getPlaceId(), userList2);
+        int n2 = RestaurantRow.getNumberOfReservations(resultsItemList2.get(0).getPlaceId(), dinersIndex2);
         assertEquals(2, n2);
     }
 
+    @Test
+    public void test_restaurantRow() {
+        ResultsItem resultsItem = getResultsItem("placeId1", 48.85, 2.35);
+        resultsItem.setName("Del Arte");
+        resultsItem.setRating(4);
+        DinersIndex dinersIndex = new DinersIndex();
+        User user = new User();
+        user.setUid("1");
+        user.setEatingPlaceId("placeId1");
+
+        RestaurantRow row = RestaurantRow.from(resultsItem, null, dinersIndex);
+        assertEquals("placeId1", row.getPlaceId());
+        assertEquals("Del Arte", row.getName());
+        assertEquals(RestaurantRow.getRatingOnThree(4), row.getRatingOnThree(), 0.01);
+        assertEquals(R.string.we_dont_know, row.getOpeningHoursText());
+        assertNull(row.getPhotoUrl());
+        assertEquals("", row.getDistance());
+        assertEquals("", row.getCoworkers());
+
+        dinersIndex.put(user);
+        RestaurantRow rowWithCoworker = RestaurantRow.from(resultsItem, null, dinersIndex);
+        assertEquals("(1)", rowWithCoworker.getCoworkers());
+        // Only the counter changed
+        assertFalse(row.equals(rowWithCoworker));
+        assertTrue(row.hasSameDetail(rowWithCoworker));
+        assertEquals(rowWithCoworker, RestaurantRow.from(resultsItem, null, dinersIndex));
+    }
+
+    @Test
+    public void test_restaurantRowDistance() {
+        LatLng myPosition = new LatLng(48.85, 2.35);
+        assertEquals(RestaurantRow.UNKNOWN_DISTANCE, RestaurantRow.getDistanceInMeters(48.851, 2.35, null));
+        assertEquals(111, RestaurantRow.getDistanceInMeters(48.851, 2.35, myPosition));
+
+        List<RestaurantRow> rows = new ArrayList<>();
+        rows.add(RestaurantRow.from(getResultsItem("far", 48.86, 2.35), myPosition, null));
+        rows.add(RestaurantRow.from(getResultsItem("unknown", 48.851, 2.35), null, null));
+        rows.add(RestaurantRow.from(getResultsItem("near", 48.851, 2.35), myPosition, null));
+        Collections.sort(rows, RestaurantRow.BY_DISTANCE);
+        assertEquals("near", rows.get(0).getPlaceId());
+        assertEquals("far", rows.get(1).getPlaceId());
+        assertEquals("unknown", rows.get(2).getPlaceId());
+        assertEquals("111m", rows.get(0).getDistance());
+        assertEquals("", rows.get(2).getDistance());
+    }
+
     @Test
     public void test_isBookedOrNot() {
         String eatingPlaceId = "Del Arte";
@@ -143,15 +219,89 @@ public class UnitTest {
         List<User> userList = new ArrayList<>();
         User user1 = new User();
         User user2 = new User();
+        user1.setUid("1");
+        user2.setUid("2");
         user1.setEatingPlaceId(eatingPlaceId);
         user2.setEatingPlaceId(eatingPlaceId2);
         userList.add(user1);
         userList.add(user2);
+        DinersIndex dinersIndex = new DinersIndex();
+        for (User user : userList) {
+            dinersIndex.put(user);
+        }
 
         MapViewFragment mapViewFragment = new MapViewFragment();
-        assertTrue(mapViewFragment.isBookedOrNot(placeId, userList));
-        assertTrue(mapViewFragment.isBookedOrNot(placeId2, userList));
-        assertFalse(mapViewFragment.isBookedOrNot(placeId3, userList));
+        assertTrue(mapViewFragment.isBookedOrNot(placeId, dinersIndex));
+        assertTrue(mapViewFragment.isBookedOrNot(placeId2, dinersIndex));
+        assertFalse(mapViewFragment.isBookedOrNot(placeId3, dinersIndex));
+    }
+
+    @Test
+    public void test_dinersIndex() {
+        DinersIndex dinersIndex = new DinersIndex();
+        User user1 = new User();
+        user1.setUid("1");
+        user1.setEatingPlaceId("Del Arte");
+        User user2 = new User();
+        user2.setUid("2");
+        user2.setEatingPlaceId("Del Arte");
+        dinersIndex.put(user1);
+        dinersIndex.put(user2);
+        assertEquals(2, dinersIndex.getNumberOfDiners("Del Arte"));
+
+        // A user who changes his choice moves to the other place
+        User movedUser1 = new User();
+        movedUser1.setUid("1");
+        movedUser1.setEatingPlaceId("Burger");
+        dinersIndex.put(movedUser1);
+        assertEquals(1, dinersIndex.getNumberOfDiners("Del Arte"));
+        assertEquals(1, dinersIndex.getNumberOfDiners("Burger"));
+        assertEquals(movedUser1, dinersIndex.getDiners("Burger").get(0));
+
+        // A cancelled choice removes the user
+        User cancelledUser2 = new User();
+        cancelledUser2.setUid("2");
+        cancelledUser2.setEatingPlaceId(" ");
+        dinersIndex.put(cancelledUser2);
+        assertFalse(dinersIndex.isBooked("Del Arte"));
+        assertTrue(dinersIndex.getDiners("Del Arte").isEmpty());
+
+        dinersIndex.remove("1");
+        assertFalse(dinersIndex.isBooked("Burger"));
+        assertEquals(0, dinersIndex.size());
+    }
+
+    @Test
+    public void test_lunchChoiceToDiner() {
+        DinersIndex dinersIndex = new DinersIndex();
+        dinersIndex.put(new LunchChoice("2021-09-01", "1", "Thierry", "url", "Del Arte", "placeId1").toDiner());
+        dinersIndex.put(new LunchChoice("2021-09-01", "2", "Sophie", null, "Del Arte", "placeId1").toDiner());
+
+        assertEquals(2, dinersIndex.getNumberOfDiners("placeId1"));
+        User diner = dinersIndex.getUser("1");
+        assertEquals("Thierry", diner.getUsername());
+        assertEquals("url", diner.getUrlPicture());
+        assertEquals("Del Arte", diner.getEatingPlace());
+        assertNull(dinersIndex.getUser("3"));
+    }
+
+    @Test
+    public void test_userSummary() {
+        List<String> likedPlaceIds = new ArrayList<>();
+        likedPlaceIds.add("placeId1");
+        User user = new User("1", "Thierry", "thierry@mail.com", "url", " ", " ", likedPlaceIds);
+
+        User summarizedUser = UserSummary.from(user).toUser();
+        assertEquals("1", summarizedUser.getUid());
+        assertEquals("Thierry", summarizedUser.getUsername());
+        assertEquals("url", summarizedUser.getUrlPicture());
+        assertNull(summarizedUser.getEmail());
+        assertNull(summarizedUser.getLikedPlaceIds());
+
+        // A summary is only written again at login when it differs from the user
+        assertEquals(new UserSummary("1", "Thierry", "url"), UserSummary.from(user));
+        assertFalse(new UserSummary("1", "Thierry", "old url").equals(UserSummary.from(user)));
+        assertFalse(UserSummary.from(user).equals(null));
     }
 
     @Test
@@ -186,5 +336,348 @@ public class UnitTest {
         assertEquals(filteredResult3.get(1).getUsername(), "c");
     }
 
+    @Test
+    public void test_expiringLruCache() {
+        long[] now = {0};
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<String, String>(10, 1000, () -> now[0]) {
+            @Override
+            protected int sizeOf(String key, String value) {
+                return value.length();
+            }
+        };
+
+        cache.put("Del Arte", "pizza");
+        assertEquals("pizza", cache.get("Del Arte"));
+        assertNull(cache.get("Burger"));
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+
+        // Size is bounded by the weight of the entries, the least recently used one is evicted
+        cache.put("Burger", "cheese");
+        assertNull(cache.get("Del Arte"));
+        assertEquals("cheese", cache.get("Burger"));
+        assertEquals(1, cache.evictionCount());
+
+        // An entry is not returned anymore once its time to live is over
+        now[0] = 1000;
+        assertNull(cache.get("Burger"));
+        assertEquals(1, cache.expiredCount());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void test_geohash() {
+        assertEquals("ezs42", Geohash.encode(42.605, -5.603, 5));
+        assertEquals("u4pruydqqvj", Geohash.encode(57.64911, 10.40744, 11));
+
+        double[] center = Geohash.center("ezs42");
+        assertEquals(42.605, center[0], 0.01);
+        assertEquals(-5.603, center[1], 0.01);
+
+        List<String> neighbours = Geohash.neighbours("u09tvw");
+        assertEquals(8, neighbours.size());
+        for (String neighbour : neighbours) {
+            assertFalse(neighbour.equals("u09tvw"));
+            assertTrue(Geohash.neighbours(neighbour).contains("u09tvw"));
+        }
+    }
+
+    @Test
+    public void test_nearbyTileCache() {
+        NearbyTileCache nearbyTileCache = new NearbyTileCache();
+        String tile = NearbyTileCache.getTile(48.8566, 2.3522);
+        assertFalse(nearbyTileCache.hasFreshTile(tile));
+
+        List<ResultsItem> tileResults = new ArrayList<>();
+        tileResults.add(getResultsItem("Del Arte", 48.8570, 2.3525));
+        tileResults.add(getResultsItem("Burger", 48.8600, 2.3500));
+        tileResults.add(getResultsItem("Far away", 48.8800, 2.3522));
+        nearbyTileCache.putTile(tile, tileResults);
+
+        List<ResultsItem> neighbourResults = new ArrayList<>();
+        neighbourResults.add(getResultsItem("Burger", 48.8600, 2.3500));
+        neighbourResults.add(getResultsItem("Sandwich", 48.8520, 2.3600));
+        nearbyTileCache.putTile(Geohash.neighbours(tile).get(0), neighbourResults);
+
+        // Results of the tile then of its neighbours, without duplicates and within the radius
+        assertTrue(nearbyTileCache.hasFreshTile(tile));
+        List<ResultsItem> results = nearbyTileCache.getResultsAround(48.8566, 2.3522, 1500);
+        assertEquals(3, results.size());
+        assertEquals("Del Arte", results.get(0).getPlaceId());
+        assertEquals("Burger", results.get(1).getPlaceId());
+        assertEquals("Sandwich", results.get(2).getPlaceId());
+    }
+
+    @Test
+    public void test_nearbyTileCacheIncompleteTile() {
+        long[] now = {0};
+        NearbyTileCache nearbyTileCache = new NearbyTileCache(new ExpiringLruCache<>(64, 1000, () -> now[0]));
+        String tile = NearbyTileCache.getTile(48.8566, 2.3522);
+
+        // A tile whose next pages are still to come is known but not fresh, so its pagination is resumed
+        List<ResultsItem> firstPage = new ArrayList<>();
+        firstPage.add(getResultsItem("Del Arte", 48.8570, 2.3525));
+        nearbyTileCache.putTile(tile, firstPage, new NearbyTileCache.NextPage("token2", 2));
+        assertFalse(nearbyTileCache.hasFreshTile(tile));
+        assertEquals("token2", nearbyTileCache.getNextPage(tile).token);
+        assertEquals(2, nearbyTileCache.getNextPage(tile).page);
+
+        // The last page completes the tile without extending the expiry of its first page
+        now[0] = 500;
+        List<ResultsItem> secondPage = new ArrayList<>();
+        secondPage.add(getResultsItem("Burger", 48.8600, 2.3500));
+        assertTrue(nearbyTileCache.addPage(tile, secondPage, null));
+        assertTrue(nearbyTileCache.hasFreshTile(tile));
+        assertNull(nearbyTileCache.getNextPage(tile));
+        assertEquals(2, nearbyTileCache.getResultsAround(48.8566, 2.3522, 1500).size());
+
+        now[0] = 1000;
+        assertFalse(nearbyTileCache.hasFreshTile(tile));
+
+        // A page arriving after the tile expired is dropped
+        assertFalse(nearbyTileCache.addPage(tile, secondPage, null));
+        assertTrue(nearbyTileCache.getResultsAround(48.8566, 2.3522, 1500).isEmpty());
+    }
+
+    @Test
+    public void test_detailProjection() {
+        // A bigger tier answers a smaller one, never the opposite
+        assertTrue(DetailProjection.FULL.covers(DetailProjection.ROW));
+        assertTrue(DetailProjection.ROW.covers(DetailProjection.PIN));
+        assertTrue(DetailProjection.PIN.covers(DetailProjection.PIN));
+        assertFalse(DetailProjection.PIN.covers(DetailProjection.ROW));
+        assertFalse(DetailProjection.ROW.covers(DetailProjection.FULL));
+
+        // Each tier asks for the fields of the smaller ones
+        for (String field : DetailProjection.PIN.getFields().split(",")) {
+            assertTrue(DetailProjection.ROW.getFields().contains(field));
+        }
+        for (String field : DetailProjection.ROW.getFields().split(",")) {
+            assertTrue(DetailProjection.FULL.getFields().contains(field));
+        }
+
+        // An answer decoded without tier was asked with every field
+        assertEquals(DetailProjection.FULL, new DetailSearch().getProjection());
+    }
+
+    @Test
+    public void test_detailFanOutConcurrencyCap() {
+        FakeDetailFetcher fetcher = new FakeDetailFetcher();
+        FakeScheduler scheduler = new FakeScheduler();
+        DetailFanOut fanOut = new DetailFanOut(2, 5000, fetcher, scheduler);
+        List<List<DetailSearch>> emitted = new ArrayList<>();
+        fanOut.start(Arrays.asList("a", "b", "c", "d"), emitted::add);
+
+        fanOut.request("a", DetailProjection.ROW);
+        fanOut.request("b", DetailProjection.ROW);
+        fanOut.request("c", DetailProjection.ROW);
+        fanOut.request("d", DetailProjection.ROW);
+        // Only 2 calls at the same time, the others wait for a call to end
+        assertEquals(2, fetcher.calls.size());
+        fetcher.answer(0);
+        assertEquals(3, fetcher.calls.size());
+        assertEquals("c", fetcher.calls.get(2).placeId);
+        fetcher.fail(1);
+        assertEquals(4, fetcher.calls.size());
+        assertEquals("d", fetcher.calls.get(3).placeId);
+        // A place already on its way with this tier is not asked again
+        fanOut.request("c", DetailProjection.PIN);
+        assertEquals(4, fetcher.calls.size());
+    }
+
+    @Test
+    public void test_detailFanOutOrder() {
+        FakeDetailFetcher fetcher = new FakeDetailFetcher();
+        fetcher.cache.put("c", getDetailSearch("c", DetailProjection.PIN));
+        DetailFanOut fanOut = new DetailFanOut(3, 5000, fetcher, new FakeScheduler());
+        List<List<DetailSearch>> emitted = new ArrayList<>();
+        fanOut.start(Arrays.asList("a", "b", "c"), emitted::add);
+        // The cached detail is known from the start
+        assertEquals(1, emitted.get(0).size());
+
+        fanOut.request("a", DetailProjection.ROW);
+        fanOut.request("b", DetailProjection.ROW);
+        fetcher.answer(1);
+        fetcher.answer(0);
+        // Emitted in the order of the ranking, not in the order of arrival
+        List<DetailSearch> last = emitted.get(emitted.size() - 1);
+        assertEquals(3, last.size());
+        assertEquals("a", last.get(0).getResult().getPlaceId());
+        assertEquals("b", last.get(1).getResult().getPlaceId());
+        assertEquals("c", last.get(2).getResult().getPlaceId());
+    }
+
+    @Test
+    public void test_detailFanOutDeadline() {
+        FakeDetailFetcher fetcher = new FakeDetailFetcher();
+        FakeScheduler scheduler = new FakeScheduler();
+        DetailFanOut fanOut = new DetailFanOut(1, 5000, fetcher, scheduler);
+        List<List<DetailSearch>> emitted = new ArrayList<>();
+        fanOut.start(Arrays.asList("a", "b"), emitted::add);
+
+        fanOut.request("a", DetailProjection.ROW);
+        fanOut.request("b", DetailProjection.ROW);
+        assertEquals(5000, scheduler.delayMs);
+        assertEquals(1, fetcher.calls.size());
+
+        // At the deadline the missing details are given up, the late answer is ignored
+        scheduler.run();
+        fetcher.answer(0);
+        assertEquals(1, fetcher.calls.size());
+        assertEquals(1, emitted.size());
+
+        // A given up detail can be requested again
+        fanOut.request("a", DetailProjection.ROW);
+        assertEquals(2, fetcher.calls.size());
+        fetcher.answer(1);
+        assertEquals(1, emitted.get(emitted.size() - 1).size());
+        // The deadline is removed once nothing is running
+        assertNull(scheduler.runnable);
+    }
+
+    @Test
+    public void test_detailFanOutStaleGeneration() {
+        FakeDetailFetcher fetcher = new FakeDetailFetcher();
+        DetailFanOut fanOut = new DetailFanOut(3, 5000, fetcher, new FakeScheduler());
+        List<List<DetailSearch>> firstBatch = new ArrayList<>();
+        fanOut.start(Arrays.asList("a", "b"), firstBatch::add);
+        fanOut.request("a", DetailProjection.ROW);
+
+        List<List<DetailSearch>> secondBatch = new ArrayList<>();
+        fanOut.start(Arrays.asList("a", "c"), secondBatch::add);
+        // The answer of the previous batch is dropped
+        fetcher.answer(0);
+        assertEquals(1, firstBatch.size());
+        assertEquals(1, secondBatch.size());
+        assertEquals(0, secondBatch.get(0).size());
+
+        fanOut.request("a", DetailProjection.ROW);
+        assertEquals(2, fetcher.calls.size());
+        fetcher.answer(1);
+        assertEquals(1, secondBatch.get(secondBatch.size() - 1).size());
+    }
+
+    @Test
+    public void test_usersSnapshot() {
+        User alice = new User("1", "Alice", "", null, " ", " ", new ArrayList<>());
+        User bob = new User("2", "Bob", "", null, " ", " ", new ArrayList<>());
+        User carol = new User("3", "Carol", "", null, " ", " ", new ArrayList<>());
+
+        List<UsersSnapshot.UserChange> initialChanges = new ArrayList<>();
+        initialChanges.add(new UsersSnapshot.UserChange(UsersSnapshot.ChangeType.ADDED, alice, -1, 0));
+        initialChanges.add(new UsersSnapshot.UserChange(UsersSnapshot.ChangeType.ADDED, bob, -1, 1));
+        initialChanges.add(new UsersSnapshot.UserChange(UsersSnapshot.ChangeType.ADDED, carol, -1, 2));
+        UsersSnapshot snapshot = UsersSnapshot.empty().apply(initialChanges);
+        assertEquals(1, snapshot.getVersion());
+        assertEquals(3, snapshot.getUsers().size());
+
+        // Carol chose a restaurant and moves first, Alice leaves, indexes are applied one after the other
+        User carolEating = new User("3", "Carol", "", null, "Del Arte", "placeId", new ArrayList<>());
+        List<UsersSnapshot.UserChange> changes = new ArrayList<>();
+        changes.add(new UsersSnapshot.UserChange(UsersSnapshot.ChangeType.MODIFIED, carolEating, 2, 0));
+        changes.add(new UsersSnapshot.UserChange(UsersSnapshot.ChangeType.REMOVED, alice, 1, -1));
+        UsersSnapshot nextSnapshot = snapshot.apply(changes);
+
+        assertEquals(2, nextSnapshot.getVersion());
+        assertEquals(2, nextSnapshot.getUsers().size());
+        assertEquals(carolEating, nextSnapshot.getUsers().get(0));
+        // Users that didn't change are the same objects
+        assertTrue(bob == nextSnapshot.getUsers().get(1));
+        assertEquals(carolEating, nextSnapshot.getUser("3"));
+        assertNull(nextSnapshot.getUser("1"));
+        assertEquals(2, nextSnapshot.getChanges().size());
+        // The previous snapshot is left untouched
+        assertEquals(3, snapshot.getUsers().size());
+        assertEquals(alice, snapshot.getUser("1"));
+    }
+
+    private ResultsItem getResultsItem(String placeId, double lat, double lng) {
+        Location location = new Location();
+        location.setLat(lat);
+        location.setLng(lng);
+        Geometry geometry = new Geometry();
+        geometry.setLocation(location);
+        ResultsItem resultsItem = new ResultsItem();
+        resultsItem.setPlaceId(placeId);
+        resultsItem.setGeometry(geometry);
+        return resultsItem;
+    }
+
+
+    private static DetailSearch getDetailSearch(String placeId, DetailProjection projection) {
+        RestaurantDetailResult result = new RestaurantDetailResult();
+        result.setPlaceId(placeId);
+        DetailSearch detailSearch = new DetailSearch();
+        detailSearch.setResult(result);
+        detailSearch.setProjection(projection);
+        return detailSearch;
+    }
+
+    // Calls of a DetailFanOut, answered or failed by the test
+    private static class FakeDetailFetcher implements DetailFanOut.Fetcher {
+
+        private final Map<String, DetailSearch> cache = new HashMap<>();
+        private final List<FetchCall> calls = new ArrayList<>();
+
+        @Override
+        public DetailSearch getCached(String placeId, DetailProjection projection) {
+            DetailSearch detailSearch = cache.get(placeId);
+            return detailSearch != null && detailSearch.getProjection().covers(projection) ? detailSearch : null;
+        }
+
+        @Override
+        public void fetch(String placeId, DetailProjection projection, Callback<DetailSearch> callback) {
+            calls.add(new FetchCall(placeId, projection, callback));
+        }
+
+        void answer(int index) {
+            FetchCall call = calls.get(index);
+            call.callback.onResponse(null, Response.success(getDetailSearch(call.placeId, call.projection)));
+        }
+
+        void fail(int index) {
+            calls.get(index).callback.onFailure(null, new IOException("offline"));
+        }
+    }
+
+    private static class FetchCall {
+
+        private final String placeId;
+        private final DetailProjection projection;
+        private final Callback<DetailSearch> callback;
+
+        FetchCall(String placeId, DetailProjection projection, Callback<DetailSearch> callback) {
+            this.placeId = placeId;
+            this.projection = projection;
+            this.callback = callback;
+        }
+    }
+
+    // Keeps the deadline of a DetailFanOut, run by the test
+    private static class FakeScheduler implements DetailFanOut.Scheduler {
+
+        private Runnable runnable;
+        private long delayMs;
+
+        @Override
+        public void postDelayed(Runnable runnable, long delayMs) {
+            this.runnable = runnable;
+            this.delayMs = delayMs;
+        }
+
+        @Override
+        public void removeCallbacks(Runnable runnable) {
+            if (this.runnable == runnable) {
+                this.runnable = null;
+            }
+        }
+
+        void run() {
+            Runnable toRun = runnable;
+            runnable = null;
+            toRun.run();
+        }
+    }
+
 
-}
\ No newline at end of file
+}